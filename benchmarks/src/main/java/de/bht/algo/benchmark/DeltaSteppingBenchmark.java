@@ -0,0 +1,51 @@
+package de.bht.algo.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import de.bht.algo.deltastepping.DeltaStepping;
+
+/**
+ * Kuerzeste Wege von einem Knoten zu allen mit {@link DeltaStepping}; zu
+ * vergleichen mit {@link ShortestPathBenchmark#ssspEngine()} auf demselben
+ * Graphen, z.B.
+ *
+ * <pre>
+ * java -jar benchmarks.jar -p size=1000000 -p workers=1,4,8 "DeltaStepping|ssspEngine"
+ * </pre>
+ */
+public class DeltaSteppingBenchmark extends GraphBenchmark {
+
+  @Param({ "1", "2", "4", "8" })
+  public int workers;
+
+  // 0: DeltaStepping.suggestDelta
+  @Param({ "0" })
+  public int delta;
+
+  private DeltaStepping deltaStepping;
+  // null bei einem Worker
+  private ExecutorService executor;
+
+  @Override
+  void setUp() {
+    deltaStepping = new DeltaStepping(graph, delta > 0 ? delta : DeltaStepping.suggestDelta(graph));
+    executor = workers > 1 ? Executors.newFixedThreadPool(workers) : null;
+  }
+
+  @Override
+  void tearDown() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  @Benchmark
+  public int sssp() throws InterruptedException {
+    int i = nextQuery();
+    return deltaStepping.distances(sources[i], executor, workers)[targets[i]];
+  }
+}
@@ -0,0 +1,23 @@
+package de.bht.algo.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import de.bht.algo.dijkstra.Dijkstra;
+import de.bht.algo.dijkstra.Dijkstra.QueueMode;
+
+/**
+ * Kuerzeste Wege von einem Knoten zu allen mit {@link Dijkstra} und den
+ * verschiedenen Warteschlangen; jeder Aufruf legt wie ein Nutzer der Klasse
+ * eine neue Instanz an
+ */
+public class DijkstraBenchmark extends GraphBenchmark {
+
+  @Param({ "INDEXED_HEAP", "DIAL", "RADIX_HEAP" })
+  public QueueMode mode;
+
+  @Benchmark
+  public int sssp() {
+    return new Dijkstra(graph, sources[nextQuery()], mode).search(-1).getSettledCount();
+  }
+}
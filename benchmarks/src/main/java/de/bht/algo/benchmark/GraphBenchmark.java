@@ -0,0 +1,104 @@
+package de.bht.algo.benchmark;
+
+import graph.CsrGraph;
+import graph.GraphGenerator;
+import graph.GraphGenerator.Family;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.bht.algo.metrics.MetricsRegistry;
+
+/**
+ * Gemeinsame Grundlage der Benchmarks: ein Graph des {@link GraphGenerator}
+ * je Familie und Groesse sowie {@link #QUERIES} feste Anfragepaare, die
+ * nacheinander gestellt werden. Mit -jvmArgs -Dde.bht.algo.metrics=true wird
+ * am Ende jedes Laufs zusaetzlich der Stand der {@link MetricsRegistry}
+ * ausgegeben.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class GraphBenchmark {
+
+  static final long SEED = 42;
+  static final int DEGREE = 8;
+  static final int QUERIES = 64;
+
+  @Param({ "GRID", "ROAD", "GEOMETRIC", "RMAT" })
+  public Family family;
+
+  // ab 1000000 Knoten hat der Graph mehrere Millionen Kanten, z.B. fuer den
+  // Vergleich von Delta-Stepping und Dijkstra
+  @Param({ "10000", "100000", "1000000" })
+  public int size;
+
+  GraphGenerator generator;
+  CsrGraph graph;
+  int[] sources;
+  int[] targets;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUpGraph() throws IOException {
+    generator = new GraphGenerator(family, size, DEGREE, SEED);
+    graph = generator.toCsrGraph();
+    int n = graph.getNumberVertices();
+    Random random = new Random(SEED);
+    sources = new int[QUERIES];
+    targets = new int[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      sources[i] = random.nextInt(n);
+      targets[i] = random.nextInt(n);
+    }
+    setUp();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownGraph() {
+    tearDown();
+    if (MetricsRegistry.ENABLED) {
+      System.out.print(MetricsRegistry.getDefault().snapshot());
+    }
+  }
+
+  /**
+   * Bereitet einen Lauf vor, nachdem Graph und Anfragen feststehen. Die
+   * Unterklassen haben dafuer keine eigenen @Setup-Methoden, weil JMH deren
+   * Reihenfolge gegenueber {@link #setUpGraph()} nicht festlegt.
+   */
+  void setUp() throws IOException {
+  }
+
+  /**
+   * Raeumt nach einem Lauf auf
+   */
+  void tearDown() {
+  }
+
+  /**
+   * @return die Nummer der naechsten Anfrage
+   */
+  int nextQuery() {
+    int i = next;
+    next = (next + 1) % QUERIES;
+    return i;
+  }
+}
@@ -0,0 +1,59 @@
+package de.bht.algo.benchmark;
+
+import graph.BinaryGraphFile;
+import graph.CsrGraph;
+import graph.GraphLesen;
+import graph.MappedCsrGraph;
+import graph.MappedGraphReader;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Laden eines Graphen aus der Textdatei (als {@link graph.Graph} und als
+ * {@link CsrGraph}) und aus der Binaerdatei
+ */
+public class LoadBenchmark extends GraphBenchmark {
+
+  private File txt;
+  private File bin;
+
+  @Override
+  void setUp() throws IOException {
+    txt = File.createTempFile("benchmark", ".txt");
+    bin = File.createTempFile("benchmark", ".bin");
+    txt.deleteOnExit();
+    bin.deleteOnExit();
+    generator.write(txt.getPath(), bin.getPath());
+  }
+
+  @Override
+  void tearDown() {
+    txt.delete();
+    bin.delete();
+  }
+
+  @Benchmark
+  public int textGraph() {
+    return GraphLesen.FileToWeightedGraph(txt.getPath(), true, false).getNumberVertices();
+  }
+
+  @Benchmark
+  public CsrGraph textCsr() throws IOException {
+    return MappedGraphReader.readCsrGraph(txt.getPath(), true);
+  }
+
+  @Benchmark
+  public long binary() throws IOException {
+    // Oeffnen allein blendet nur ein; erst das Lesen aller Kanten ist mit dem
+    // Parsen vergleichbar
+    MappedCsrGraph g = BinaryGraphFile.open(bin.getPath());
+    long sum = 0;
+    for (int e = 0; e < g.getNumberEdges(); e++) {
+      sum += g.getTarget(e) + g.getWeight(e);
+    }
+    return sum;
+  }
+}
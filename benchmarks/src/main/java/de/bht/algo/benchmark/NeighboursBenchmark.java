@@ -0,0 +1,60 @@
+package de.bht.algo.benchmark;
+
+import graph.Edge;
+import graph.Graph;
+import graph.GraphLesen;
+import graph.IntIntConsumer;
+import graph.Vertex;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Iteration ueber alle Nachbarn eines {@link Graph} mit Knotenobjekten:
+ * getNeighbours gegen forEachNeighbour
+ */
+public class NeighboursBenchmark extends GraphBenchmark {
+
+  private Graph<Vertex, Edge<Vertex>> objectGraph;
+
+  @Override
+  void setUp() throws IOException {
+    File txt = File.createTempFile("benchmark", ".txt");
+    try {
+      generator.write(txt.getPath(), null);
+      objectGraph = GraphLesen.FileToWeightedGraph(txt.getPath(), true, false);
+    } finally {
+      txt.delete();
+    }
+  }
+
+  @Override
+  void tearDown() {
+    objectGraph = null;
+  }
+
+  @Benchmark
+  public long getNeighbours() {
+    long sum = 0;
+    for (int v = 0, n = objectGraph.getNumberVertices(); v < n; v++) {
+      sum += objectGraph.getNeighbours(v).size();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public void forEachNeighbour(final Blackhole blackhole) {
+    IntIntConsumer consumer = new IntIntConsumer() {
+      @Override
+      public void accept(int target, int weight) {
+        blackhole.consume(target + weight);
+      }
+    };
+    for (int v = 0, n = objectGraph.getNumberVertices(); v < n; v++) {
+      objectGraph.forEachNeighbour(v, consumer);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package de.bht.algo.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import de.bht.algo.dijkstra.ShortestPathEngine;
+
+/**
+ * Kuerzeste Wege mit der {@link ShortestPathEngine}: von einem Knoten zu allen
+ * (sssp) und zwischen zwei Knoten (p2p), dort uni- und bidirektional. Jeder
+ * Aufruf stellt die naechste der festen Anfragen.
+ */
+public class ShortestPathBenchmark extends GraphBenchmark {
+
+  private ShortestPathEngine engine;
+  private int[] dist;
+
+  @Override
+  void setUp() {
+    engine = new ShortestPathEngine(graph);
+    dist = new int[graph.getNumberVertices()];
+  }
+
+  @Benchmark
+  public int ssspEngine() {
+    int i = nextQuery();
+    engine.distances(sources[i], dist);
+    return dist[targets[i]];
+  }
+
+  @Benchmark
+  public int p2pEngine() {
+    int i = nextQuery();
+    return engine.distance(sources[i], targets[i]);
+  }
+
+  @Benchmark
+  public int p2pBidirectional() {
+    int i = nextQuery();
+    return engine.bidirectionalDistance(sources[i], targets[i]);
+  }
+}
@@ -0,0 +1,99 @@
+package de.bht.algo.astar;
+
+import de.bht.algo.dijkstra.IndexedDAryHeap;
+import de.bht.algo.dijkstra.SearchWorkspace;
+import graph.IndexedGraph;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A*-Suche fuer Punkt-zu-Punkt-Anfragen. Wie beim Dijkstra-Algorithmus wird
+ * immer der Knoten mit dem kleinsten Schluessel abgearbeitet, der Schluessel
+ * ist aber die bisherige Distanz plus die Schaetzung der {@link Heuristic}
+ * bis zum Ziel. Die Suche laeuft dadurch gezielt in Richtung des Ziels.
+ * <p>
+ * Wie die {@link de.bht.algo.dijkstra.ShortestPathEngine} liest die Engine den
+ * Graphen nur und kann von mehreren Threads gleichzeitig benutzt werden.
+ */
+public class AStarEngine {
+
+  /** Distanz fuer nicht erreichbare Knoten */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  private final IndexedGraph graph;
+  private final Heuristic heuristic;
+  private final ConcurrentLinkedQueue<SearchWorkspace> pool = new ConcurrentLinkedQueue<SearchWorkspace>();
+
+  /**
+   * @param graph
+   *          der Graph mit nicht-negativen Kantengewichten; darf danach nicht
+   *          mehr veraendert werden
+   * @param heuristic
+   *          eine zulaessige und konsistente Schaetzung fuer diesen Graphen
+   */
+  public AStarEngine(IndexedGraph graph, Heuristic heuristic) {
+    this.graph = graph;
+    this.heuristic = heuristic;
+  }
+
+  /**
+   * @return die Länge eines kürzesten Weges oder {@link #UNREACHABLE}
+   */
+  public int distance(int source, int target) {
+    SearchWorkspace ws = acquire();
+    try {
+      search(ws, source, target);
+      return ws.getDist(target);
+    } finally {
+      pool.offer(ws);
+    }
+  }
+
+  /**
+   * @return die Knoten eines kürzesten Weges von source bis target oder null,
+   *         wenn target nicht erreichbar ist
+   */
+  public int[] path(int source, int target) {
+    SearchWorkspace ws = acquire();
+    try {
+      search(ws, source, target);
+      return ws.pathTo(source, target);
+    } finally {
+      pool.offer(ws);
+    }
+  }
+
+  private SearchWorkspace acquire() {
+    SearchWorkspace ws = pool.poll();
+    if (ws == null) {
+      ws = new SearchWorkspace(graph.getNumberVertices());
+    }
+    ws.reset();
+    return ws;
+  }
+
+  private void search(SearchWorkspace ws, int source, int target) {
+    if (source < 0 || source >= graph.getNumberVertices() || target < 0 || target >= graph.getNumberVertices()) {
+      throw new IllegalArgumentException("Knoten existiert nicht");
+    }
+    IndexedDAryHeap heap = ws.getHeap();
+    ws.set(source, 0, -1);
+    heap.insert(source, heuristic.estimate(source, target));
+
+    while (!heap.isEmpty()) {
+      int curr = heap.poll();
+      if (curr == target) {
+        return;
+      }
+      int currDist = ws.getDist(curr);
+      for (int e = graph.firstEdge(curr), end = graph.endEdge(curr); e < end; e++) {
+        int neighbor = graph.getTarget(e);
+        int alternativeDist = currDist + graph.getWeight(e);
+        if (alternativeDist < ws.getDist(neighbor) && !heap.isSettled(neighbor)) {
+          ws.set(neighbor, alternativeDist, curr);
+          heap.insertOrDecrease(neighbor, alternativeDist + heuristic.estimate(neighbor, target));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package de.bht.algo.astar;
+
+import graph.Coordinates;
+
+/**
+ * Heuristik ueber die Luftlinie zwischen zwei Knoten. Die Luftlinie wird mit
+ * einem Faktor in Kantengewichts-Einheiten umgerechnet; zulaessig ist die
+ * Heuristik nur, wenn kein Kantengewicht kleiner ist als faktor * Luftlinie
+ * zwischen seinen Endknoten (z.B. Faktor = 1 / Hoechstgeschwindigkeit bei
+ * Fahrzeiten).
+ */
+public class CoordinateHeuristic implements Heuristic {
+
+  /**
+   * Wie aus den Koordinaten die Luftlinie bestimmt wird
+   */
+  public enum Metric {
+    /**
+     * euklidischer Abstand in der Ebene
+     */
+    EUCLIDEAN,
+    /**
+     * Grosskreisabstand in Metern, x = Laengengrad, y = Breitengrad in Grad
+     */
+    HAVERSINE
+  }
+
+  private static final double EARTH_RADIUS = 6371000.0;
+
+  private final Coordinates coordinates;
+  private final Metric metric;
+  private final double factor;
+
+  /**
+   * @param coordinates
+   *          die Koordinaten der Knoten
+   * @param metric
+   *          die Abstandsfunktion
+   * @param factor
+   *          Umrechnung von Luftlinie in Kantengewicht
+   */
+  public CoordinateHeuristic(Coordinates coordinates, Metric metric, double factor) {
+    this.coordinates = coordinates;
+    this.metric = metric;
+    this.factor = factor;
+  }
+
+  @Override
+  public int estimate(int vertex, int target) {
+    double d;
+    if (metric == Metric.EUCLIDEAN) {
+      double dx = coordinates.getX(vertex) - coordinates.getX(target);
+      double dy = coordinates.getY(vertex) - coordinates.getY(target);
+      d = Math.sqrt(dx * dx + dy * dy);
+    } else {
+      d = haversine(coordinates.getY(vertex), coordinates.getX(vertex), coordinates.getY(target),
+          coordinates.getX(target));
+    }
+    // abrunden, damit die Schaetzung auch nach der Umrechnung nicht zu gross
+    // wird
+    return (int) Math.floor(d * factor);
+  }
+
+  private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+    double dLat = Math.toRadians(lat2 - lat1);
+    double dLon = Math.toRadians(lon2 - lon1);
+    double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(Math.toRadians(lat1))
+        * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+    return 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+  }
+}
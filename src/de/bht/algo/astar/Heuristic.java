@@ -0,0 +1,19 @@
+package de.bht.algo.astar;
+
+/**
+ * Eine Schaetzung der Restdistanz fuer die A*-Suche. Die Schaetzung muss
+ * zulaessig (nie groesser als die echte Distanz) und konsistent sein, d.h.
+ * fuer jede Kante (u,v) mit Gewicht w gilt estimate(u, t) &lt;= w +
+ * estimate(v, t). Dann wird jeder Knoten nur einmal abgearbeitet.
+ */
+public interface Heuristic {
+
+  /**
+   * @param vertex
+   *          ein Knoten
+   * @param target
+   *          der Zielknoten der Suche
+   * @return eine untere Schranke fuer die Distanz von vertex nach target
+   */
+  int estimate(int vertex, int target);
+}
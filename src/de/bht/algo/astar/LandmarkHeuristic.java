@@ -0,0 +1,291 @@
+package de.bht.algo.astar;
+
+import de.bht.algo.dijkstra.ShortestPathEngine;
+import graph.IndexedGraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * ALT-Heuristik (A*, Landmarks, Triangle inequality). Fuer einige wenige
+ * Landmarken L sind die Distanzen d(L, v) und d(v, L) zu allen Knoten
+ * vorberechnet. Nach der Dreiecksungleichung gilt dann d(v, t) &gt;= d(L, t) -
+ * d(L, v) und d(v, t) &gt;= d(v, L) - d(t, L); das Maximum dieser Schranken
+ * ueber alle Landmarken ist die Schaetzung.
+ * <p>
+ * Die Distanzen liegen je Knoten hintereinander in int-Arrays ([v * k + i]
+ * fuer Landmarke i), so dass eine Schaetzung nur zwei kurze, zusammenhaengende
+ * Bereiche liest.
+ */
+public class LandmarkHeuristic implements Heuristic {
+
+  /** Dateiendung der gespeicherten Vorberechnung */
+  public static final String FILE_SUFFIX = ".alt";
+
+  private static final int MAGIC = 0x414C5431; // "ALT1"
+  private static final int INF = Integer.MAX_VALUE;
+
+  private final int numVertices;
+  private final int[] landmarks;
+  private final int[] fromLandmark; // d(L_i, v)
+  private final int[] toLandmark; // d(v, L_i)
+
+  private LandmarkHeuristic(int numVertices, int[] landmarks, int[] fromLandmark, int[] toLandmark) {
+    this.numVertices = numVertices;
+    this.landmarks = landmarks;
+    this.fromLandmark = fromLandmark;
+    this.toLandmark = toLandmark;
+  }
+
+  /**
+   * Waehlt k Landmarken moeglichst weit voneinander entfernt: jede neue
+   * Landmarke ist der erreichbare Knoten mit der groessten Anzahl Kanten zur
+   * naechsten bisher gewaehlten Landmarke
+   *
+   * @param graph
+   *          der Graph
+   * @param k
+   *          Anzahl der Landmarken
+   * @param seed
+   *          Startwert fuer die Wahl des ersten Suchknotens
+   * @return die Landmarken (hoechstens n)
+   */
+  public static int[] selectLandmarks(IndexedGraph graph, int k, long seed) {
+    int n = graph.getNumberVertices();
+    k = Math.min(k, n);
+    int[] minHops = new int[n];
+    Arrays.fill(minHops, INF);
+    int[] hops = new int[n];
+    int[] landmarks = new int[k];
+
+    int candidate = farthest(graph, new Random(seed).nextInt(Math.max(n, 1)), hops);
+    for (int i = 0; i < k; i++) {
+      landmarks[i] = candidate;
+      bfs(graph, candidate, hops);
+      int best = -1;
+      candidate = -1;
+      for (int v = 0; v < n; v++) {
+        minHops[v] = Math.min(minHops[v], hops[v]);
+        if (minHops[v] != INF && minHops[v] > best) {
+          best = minHops[v];
+          candidate = v;
+        }
+      }
+      if (best <= 0) {
+        // alle erreichbaren Knoten sind schon Landmarken
+        for (int v = 0; v < n; v++) {
+          if (minHops[v] != 0) {
+            candidate = v;
+            break;
+          }
+        }
+      }
+    }
+    return landmarks;
+  }
+
+  /**
+   * Berechnet die Landmarken-Distanzen; die 2k Dijkstra-Laeufe (vorwaerts und
+   * auf dem umgekehrten Graphen) laufen parallel auf dem Executor
+   *
+   * @param graph
+   *          der Graph mit nicht-negativen Kantengewichten
+   * @param landmarks
+   *          die Landmarken, z.B. aus {@link #selectLandmarks}
+   * @param executor
+   *          der Executor fuer die Dijkstra-Laeufe
+   * @return die Heuristik
+   * @throws InterruptedException
+   *           wenn der Thread beim Warten unterbrochen wird
+   */
+  public static LandmarkHeuristic compute(IndexedGraph graph, final int[] landmarks, ExecutorService executor)
+      throws InterruptedException {
+    final int n = graph.getNumberVertices();
+    final int k = landmarks.length;
+    final int[] fromLandmark = new int[n * k];
+    final int[] toLandmark = new int[n * k];
+    final ShortestPathEngine forward = new ShortestPathEngine(graph);
+    final ShortestPathEngine backward = new ShortestPathEngine(forward.getReverseGraph());
+
+    List<Future<?>> futures = new ArrayList<Future<?>>(2 * k);
+    for (int i = 0; i < k; i++) {
+      final int index = i;
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() {
+          scatter(forward.distances(landmarks[index]), fromLandmark, index, k);
+          return null;
+        }
+      }));
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() {
+          scatter(backward.distances(landmarks[index]), toLandmark, index, k);
+          return null;
+        }
+      }));
+    }
+    for (Future<?> f : futures) {
+      try {
+        f.get();
+      } catch (ExecutionException e) {
+        throw new RuntimeException("Vorberechnung der Landmarken fehlgeschlagen", e.getCause());
+      }
+    }
+    return new LandmarkHeuristic(n, landmarks.clone(), fromLandmark, toLandmark);
+  }
+
+  @Override
+  public int estimate(int vertex, int target) {
+    int k = landmarks.length;
+    int vb = vertex * k;
+    int tb = target * k;
+    int best = 0;
+    for (int i = 0; i < k; i++) {
+      int lv = fromLandmark[vb + i];
+      int lt = fromLandmark[tb + i];
+      if (lv != INF && lt != INF && lt - lv > best) {
+        best = lt - lv;
+      }
+      int vl = toLandmark[vb + i];
+      int tl = toLandmark[tb + i];
+      if (vl != INF && tl != INF && vl - tl > best) {
+        best = vl - tl;
+      }
+    }
+    return best;
+  }
+
+  public int[] getLandmarks() {
+    return landmarks.clone();
+  }
+
+  public int getNumberVertices() {
+    return numVertices;
+  }
+
+  /**
+   * @param graphFile
+   *          Pfad der Graphdatei
+   * @return Pfad, unter dem die Vorberechnung neben der Graphdatei liegt
+   */
+  public static String fileFor(String graphFile) {
+    return graphFile + FILE_SUFFIX;
+  }
+
+  /**
+   * Speichert die Vorberechnung (big-endian: Kennung, n, k, Landmarken,
+   * d(L, v), d(v, L))
+   */
+  public void save(String dat) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dat), 1 << 16));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(numVertices);
+      out.writeInt(landmarks.length);
+      writeInts(out, landmarks);
+      writeInts(out, fromLandmark);
+      writeInts(out, toLandmark);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Laedt eine mit {@link #save(String)} gespeicherte Vorberechnung
+   *
+   * @param dat
+   *          die Datei
+   * @param graph
+   *          der Graph, zu dem die Vorberechnung gehoeren soll
+   * @throws IOException
+   *           wenn die Datei nicht gelesen werden kann oder nicht zum Graphen
+   *           passt
+   */
+  public static LandmarkHeuristic load(String dat, IndexedGraph graph) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(dat), 1 << 16));
+    try {
+      if (in.readInt() != MAGIC) {
+        throw new IOException(dat + " ist keine Landmarken-Datei");
+      }
+      int n = in.readInt();
+      int k = in.readInt();
+      if (n != graph.getNumberVertices()) {
+        throw new IOException(dat + " gehoert zu einem Graphen mit " + n + " Knoten");
+      }
+      int[] landmarks = readInts(in, k);
+      int[] fromLandmark = readInts(in, n * k);
+      int[] toLandmark = readInts(in, n * k);
+      return new LandmarkHeuristic(n, landmarks, fromLandmark, toLandmark);
+    } finally {
+      in.close();
+    }
+  }
+
+  private static void scatter(int[] dist, int[] target, int index, int k) {
+    for (int v = 0; v < dist.length; v++) {
+      target[v * k + index] = dist[v];
+    }
+  }
+
+  private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+    for (int value : values) {
+      out.writeInt(value);
+    }
+  }
+
+  private static int[] readInts(DataInputStream in, int length) throws IOException {
+    int[] values = new int[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = in.readInt();
+    }
+    return values;
+  }
+
+  /**
+   * Breitensuche ueber die Kanten; hops[v] ist danach die Anzahl Kanten vom
+   * Start oder INF
+   */
+  private static void bfs(IndexedGraph graph, int start, int[] hops) {
+    Arrays.fill(hops, INF);
+    int[] queue = new int[hops.length];
+    int head = 0;
+    int tail = 0;
+    hops[start] = 0;
+    queue[tail++] = start;
+    while (head < tail) {
+      int u = queue[head++];
+      for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+        int v = graph.getTarget(e);
+        if (hops[v] == INF) {
+          hops[v] = hops[u] + 1;
+          queue[tail++] = v;
+        }
+      }
+    }
+  }
+
+  private static int farthest(IndexedGraph graph, int start, int[] hops) {
+    bfs(graph, start, hops);
+    int best = start;
+    for (int v = 0; v < hops.length; v++) {
+      if (hops[v] != INF && hops[v] > hops[best]) {
+        best = v;
+      }
+    }
+    return best;
+  }
+}
@@ -0,0 +1,428 @@
+package de.bht.algo.bellmanford;
+
+import graph.CsrGraph;
+import graph.Edge;
+import graph.Graph;
+import graph.IndexedGraph;
+import graph.Vertex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Bellman-Ford fuer Graphen mit negativen Kantengewichten. Die Kanten liegen
+ * als flache int-Arrays vor, nach Endknoten gruppiert (fuer jeden Knoten v die
+ * Startknoten und Gewichte seiner eingehenden Kanten). Ein Durchlauf ueber alle
+ * Kanten ist damit ein linearer Speicherzugriff, und fuer den parallelen
+ * Durchlauf gehoert jeder Knoten genau einem Thread.
+ * <p>
+ * Es gibt drei Varianten fuer einen Startknoten:
+ * <ul>
+ * <li>{@link #run(int)}: SPFA, d.h. nur Knoten, deren Distanz sich geaendert
+ * hat, werden in einer Warteschlange erneut betrachtet</li>
+ * <li>{@link #runPasses(int)}: klassische Durchlaeufe ueber alle Kanten, mit
+ * Abbruch, sobald ein Durchlauf nichts mehr aendert</li>
+ * <li>{@link #runParallel(int, ExecutorService, int)}: dieselben Durchlaeufe,
+ * aber auf mehrere Threads verteilt (fuer sehr grosse Kantenlisten)</li>
+ * </ul>
+ * Ist vom Start aus ein negativer Zyklus erreichbar, liefern alle Varianten
+ * false, und {@link #getNegativeCycle()} gibt den Zyklus zurueck.
+ * <p>
+ * Eine Instanz haelt das Ergebnis des letzten Laufs und ist daher nicht
+ * thread-sicher.
+ */
+public class BellmanFord {
+
+  /** Distanz fuer nicht erreichbare Knoten */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  // Standardanzahl der Teilstuecke je Thread im parallelen Durchlauf
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private final IndexedGraph graph;
+  private final int n;
+
+  // eingehende Kanten: inOffsets[v] .. inOffsets[v+1]-1 sind die Kanten nach v
+  private final int[] inOffsets;
+  private final int[] inSource;
+  private final int[] inWeight;
+
+  private final int[] dist;
+  private final int[] pred;
+  private boolean computed;
+  private int[] negativeCycle;
+
+  /**
+   * @param graph
+   *          der Graph; darf danach nicht mehr veraendert werden
+   */
+  public BellmanFord(IndexedGraph graph) {
+    this.graph = graph;
+    n = graph.getNumberVertices();
+    int m = graph.getNumberEdges();
+    inOffsets = new int[n + 1];
+    for (int e = 0; e < m; e++) {
+      inOffsets[graph.getTarget(e) + 1]++;
+    }
+    for (int v = 0; v < n; v++) {
+      inOffsets[v + 1] += inOffsets[v];
+    }
+    int[] next = Arrays.copyOf(inOffsets, n);
+    inSource = new int[m];
+    inWeight = new int[m];
+    for (int u = 0; u < n; u++) {
+      for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+        int pos = next[graph.getTarget(e)]++;
+        inSource[pos] = u;
+        inWeight[pos] = graph.getWeight(e);
+      }
+    }
+    dist = new int[n];
+    pred = new int[n];
+  }
+
+  /**
+   * @param graph
+   *          der Graph mit Knoten-Id's 0 .. n-1
+   */
+  public <V extends Vertex, E extends Edge<V>> BellmanFord(Graph<V, E> graph) {
+    this(CsrGraph.fromGraph(graph));
+  }
+
+  /**
+   * Kuerzeste Wege mit SPFA (Shortest Path Faster Algorithm). Ein Knoten wird
+   * nur dann erneut betrachtet, wenn sich seine Distanz verringert hat; jeder
+   * Knoten steht hoechstens einmal in der Warteschlange.
+   *
+   * @param source
+   *          der Startknoten
+   * @return false, wenn vom Start aus ein negativer Zyklus erreichbar ist
+   */
+  public boolean run(int source) {
+    init(source);
+    // Ringpuffer; da jeder Knoten hoechstens einmal darin steht, reichen n
+    // Plaetze
+    int[] queue = new int[n];
+    boolean[] queued = new boolean[n];
+    queue[0] = source;
+    queued[source] = true;
+    return spfa(queue, queued, 1);
+  }
+
+  /**
+   * Wie {@link #run(int)}, aber alle Knoten starten mit Distanz 0. Das
+   * entspricht einem zusaetzlichen Startknoten mit Kanten des Gewichts 0 zu
+   * allen Knoten; die Distanzen sind dann die Potentiale fuer Johnsons
+   * Algorithmus.
+   *
+   * @return false, wenn der Graph einen negativen Zyklus enthaelt
+   */
+  public boolean runFromAll() {
+    init();
+    int[] queue = new int[n];
+    boolean[] queued = new boolean[n];
+    for (int v = 0; v < n; v++) {
+      dist[v] = 0;
+      queue[v] = v;
+      queued[v] = true;
+    }
+    return spfa(queue, queued, n);
+  }
+
+  /**
+   * SPFA ab den Knoten, die schon in der Warteschlange stehen
+   */
+  private boolean spfa(int[] queue, boolean[] queued, int size) {
+    // Anzahl Kanten des aktuellen Weges je Knoten; erreicht sie n, muss der
+    // Weg einen Zyklus enthalten
+    int[] length = new int[n];
+    int head = 0;
+    while (size > 0) {
+      int u = queue[head];
+      head = head + 1 == n ? 0 : head + 1;
+      size--;
+      queued[u] = false;
+      int du = dist[u];
+      for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+        int v = graph.getTarget(e);
+        int alternativeDist = du + graph.getWeight(e);
+        if (alternativeDist < dist[v]) {
+          dist[v] = alternativeDist;
+          pred[v] = u;
+          length[v] = length[u] + 1;
+          if (length[v] >= n && findNegativeCycle(v)) {
+            return false;
+          }
+          if (!queued[v]) {
+            int tail = head + size;
+            queue[tail >= n ? tail - n : tail] = v;
+            size++;
+            queued[v] = true;
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Kuerzeste Wege mit Durchlaeufen ueber alle Kanten. Der Lauf endet, sobald
+   * ein Durchlauf keine Distanz mehr verringert, spaetestens aber nach n-1
+   * Durchlaeufen (sonst gibt es einen negativen Zyklus).
+   *
+   * @param source
+   *          der Startknoten
+   * @return false, wenn vom Start aus ein negativer Zyklus erreichbar ist
+   */
+  public boolean runPasses(int source) {
+    init(source);
+    for (int pass = 1;; pass++) {
+      if (!relax(dist, dist, 0, n)) {
+        return true;
+      }
+      if (pass >= n && findNegativeCycle()) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Wie {@link #runPasses(int)}, aber jeder Durchlauf wird in Knotenbereiche
+   * mit etwa gleich vielen eingehenden Kanten aufgeteilt, die parallel auf dem
+   * Executor laufen. Jeder Bereich liest die Distanzen des vorigen Durchlaufs
+   * und schreibt nur die eigenen Knoten, daher ist keine Synchronisation
+   * innerhalb eines Durchlaufs noetig.
+   *
+   * @param source
+   *          der Startknoten
+   * @param executor
+   *          der Executor fuer die Teilstuecke
+   * @param threads
+   *          Anzahl der Threads des Executors
+   * @return false, wenn vom Start aus ein negativer Zyklus erreichbar ist
+   * @throws InterruptedException
+   *           wenn der Thread beim Warten unterbrochen wird
+   */
+  public boolean runParallel(int source, ExecutorService executor, int threads) throws InterruptedException {
+    init(source);
+    int[] bounds = chunkBounds(threads * CHUNKS_PER_THREAD);
+    final int[] next = dist.clone();
+    List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(bounds.length - 1);
+    for (int pass = 1;; pass++) {
+      futures.clear();
+      for (int i = 0; i + 1 < bounds.length; i++) {
+        final int first = bounds[i];
+        final int end = bounds[i + 1];
+        futures.add(executor.submit(new Callable<Boolean>() {
+          @Override
+          public Boolean call() {
+            return relax(dist, next, first, end);
+          }
+        }));
+      }
+      boolean changed = false;
+      for (Future<Boolean> f : futures) {
+        try {
+          changed |= f.get();
+        } catch (ExecutionException e) {
+          throw new RuntimeException("Paralleler Bellman-Ford-Durchlauf fehlgeschlagen", e.getCause());
+        }
+      }
+      if (!changed) {
+        return true;
+      }
+      // der naechste Durchlauf liest, was dieser geschrieben hat
+      System.arraycopy(next, 0, dist, 0, n);
+      if (pass >= n && findNegativeCycle()) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * @return die Distanz vom Start des letzten Laufs oder {@link #UNREACHABLE}
+   * @throws IllegalStateException
+   *           wenn der letzte Lauf einen negativen Zyklus gefunden hat
+   */
+  public int getDist(int v) {
+    checkResult();
+    return dist[v];
+  }
+
+  /**
+   * @return der Vorgaenger auf einem kuerzesten Weg oder -1
+   * @throws IllegalStateException
+   *           wenn der letzte Lauf einen negativen Zyklus gefunden hat
+   */
+  public int getPred(int v) {
+    checkResult();
+    return pred[v];
+  }
+
+  /**
+   * Folgt den Vorgaengern vom Ziel zurueck zum Start
+   *
+   * @return die Knoten des Weges vom Start (bei {@link #runFromAll()} von dem
+   *         Knoten, bei dem er beginnt) bis target oder null, wenn target nicht
+   *         erreichbar ist
+   * @throws IllegalStateException
+   *           wenn der letzte Lauf einen negativen Zyklus gefunden hat
+   */
+  public int[] pathTo(int target) {
+    checkResult();
+    if (dist[target] == UNREACHABLE) {
+      return null;
+    }
+    int length = 1;
+    for (int v = pred[target]; v != -1; v = pred[v]) {
+      length++;
+    }
+    int[] path = new int[length];
+    for (int v = target, i = length - 1; i >= 0; v = pred[v], i--) {
+      path[i] = v;
+    }
+    return path;
+  }
+
+  /**
+   * @return die Knoten eines negativen Zyklus in Kantenrichtung (der erste
+   *         Knoten wird am Ende nicht wiederholt) oder null, wenn der letzte
+   *         Lauf keinen gefunden hat
+   */
+  public int[] getNegativeCycle() {
+    return negativeCycle == null ? null : negativeCycle.clone();
+  }
+
+  private void init(int source) {
+    if (source < 0 || source >= n) {
+      throw new IllegalArgumentException("Unbekannter Knoten: " + source);
+    }
+    init();
+    dist[source] = 0;
+  }
+
+  private void init() {
+    Arrays.fill(dist, UNREACHABLE);
+    Arrays.fill(pred, -1);
+    computed = true;
+    negativeCycle = null;
+  }
+
+  /**
+   * Relaxiert alle eingehenden Kanten der Knoten first .. end-1; liest die
+   * Distanzen aus from und schreibt verbesserte nach to (darf dasselbe Array
+   * sein)
+   *
+   * @return true, wenn sich eine Distanz verringert hat
+   */
+  private boolean relax(int[] from, int[] to, int first, int end) {
+    boolean changed = false;
+    for (int v = first; v < end; v++) {
+      int best = to[v];
+      int bestPred = -1;
+      for (int e = inOffsets[v], last = inOffsets[v + 1]; e < last; e++) {
+        int du = from[inSource[e]];
+        if (du != UNREACHABLE && du + inWeight[e] < best) {
+          best = du + inWeight[e];
+          bestPred = inSource[e];
+        }
+      }
+      if (bestPred != -1) {
+        to[v] = best;
+        pred[v] = bestPred;
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Teilt die Knoten in Bereiche mit etwa gleich vielen eingehenden Kanten
+   *
+   * @return die Bereichsgrenzen, beginnend mit 0 und endend mit n
+   */
+  private int[] chunkBounds(int chunks) {
+    chunks = Math.max(1, Math.min(chunks, n));
+    int m = inOffsets[n];
+    int[] bounds = new int[chunks + 1];
+    int v = 0;
+    for (int i = 1; i < chunks; i++) {
+      long goal = (long) m * i / chunks;
+      while (v < n && inOffsets[v] < goal) {
+        v++;
+      }
+      bounds[i] = v;
+    }
+    bounds[chunks] = n;
+    return bounds;
+  }
+
+  /**
+   * Sucht von start aus entlang der Vorgaenger nach einem Zyklus
+   *
+   * @return true, wenn ein Zyklus gefunden und in negativeCycle abgelegt wurde
+   */
+  private boolean findNegativeCycle(int start) {
+    // nach n Schritten ohne Ende des Weges liegt der Knoten auf einem Zyklus
+    int v = start;
+    for (int i = 0; i < n; i++) {
+      v = pred[v];
+      if (v == -1) {
+        return false;
+      }
+    }
+    negativeCycle = collectCycle(v);
+    return true;
+  }
+
+  /**
+   * Sucht im gesamten Vorgaengergraphen nach einem Zyklus
+   *
+   * @return true, wenn ein Zyklus gefunden und in negativeCycle abgelegt wurde
+   */
+  private boolean findNegativeCycle() {
+    // walk[v] = Nummer der Suche, die v zuerst erreicht hat (0 = keine)
+    int[] walk = new int[n];
+    for (int start = 0; start < n; start++) {
+      int v = start;
+      while (v != -1 && walk[v] == 0) {
+        walk[v] = start + 1;
+        v = pred[v];
+      }
+      if (v != -1 && walk[v] == start + 1) {
+        negativeCycle = collectCycle(v);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return die Knoten des Vorgaenger-Zyklus durch v in Kantenrichtung
+   */
+  private int[] collectCycle(int v) {
+    int length = 1;
+    for (int u = pred[v]; u != v; u = pred[u]) {
+      length++;
+    }
+    int[] cycle = new int[length];
+    for (int u = v, i = length - 1; i >= 0; u = pred[u], i--) {
+      cycle[i] = u;
+    }
+    return cycle;
+  }
+
+  private void checkResult() {
+    if (!computed) {
+      throw new IllegalStateException("Es wurde noch kein Lauf gestartet");
+    }
+    if (negativeCycle != null) {
+      throw new IllegalStateException("Der Graph enthält einen negativen Zyklus");
+    }
+  }
+}
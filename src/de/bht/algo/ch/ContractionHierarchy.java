@@ -0,0 +1,239 @@
+package de.bht.algo.ch;
+
+import de.bht.algo.dijkstra.IndexedDAryHeap;
+import de.bht.algo.dijkstra.SearchWorkspace;
+import graph.CsrGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Eine Contraction Hierarchy fuer schnelle Punkt-zu-Punkt-Anfragen auf einem
+ * statischen Graphen, erzeugt mit dem {@link ContractionHierarchyBuilder}.
+ * <p>
+ * Jeder Knoten hat einen Rang (seine Position in der Kontraktionsreihenfolge).
+ * Der Aufwaertsgraph enthaelt alle Kanten und Shortcuts u -&gt; w mit rank(u)
+ * &lt; rank(w), der Abwaertsgraph alle Kanten u -&gt; w mit rank(u) &gt;
+ * rank(w), umgekehrt bei w abgelegt. Eine Anfrage sucht vom Start im
+ * Aufwaertsgraphen und vom Ziel im Abwaertsgraphen, beide also nur zu hoeheren
+ * Raengen; ein kuerzester Weg trifft sich in seinem hoechsten Knoten. Shortcuts
+ * werden ueber ihren Mittelknoten wieder in Originalkanten entpackt.
+ * <p>
+ * Anfragen sind wie bei der {@link de.bht.algo.dijkstra.ShortestPathEngine}
+ * wiedereintrittsfaehig und koennen parallel gestellt werden.
+ */
+public class ContractionHierarchy {
+
+  /** Distanz fuer nicht erreichbare Knoten */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  private final int[] rank;
+  private final CsrGraph up;
+  private final int[] upMiddle;
+  private final CsrGraph down;
+  private final int[] downMiddle;
+
+  private final ConcurrentLinkedQueue<SearchWorkspace> pool = new ConcurrentLinkedQueue<SearchWorkspace>();
+
+  ContractionHierarchy(int[] rank, CsrGraph up, int[] upMiddle, CsrGraph down, int[] downMiddle) {
+    this.rank = rank;
+    this.up = up;
+    this.upMiddle = upMiddle;
+    this.down = down;
+    this.downMiddle = downMiddle;
+  }
+
+  public int getNumberVertices() {
+    return rank.length;
+  }
+
+  /**
+   * @return Anzahl der Kanten und Shortcuts beider Suchgraphen
+   */
+  public int getNumberEdges() {
+    return up.getNumberEdges() + down.getNumberEdges();
+  }
+
+  /**
+   * @return Position des Knotens in der Kontraktionsreihenfolge
+   */
+  public int getRank(int v) {
+    return rank[v];
+  }
+
+  /**
+   * @return die Länge eines kürzesten Weges oder {@link #UNREACHABLE}
+   */
+  public int distance(int source, int target) {
+    SearchWorkspace forward = acquire();
+    SearchWorkspace backward = acquire();
+    try {
+      int meet = search(forward, backward, source, target);
+      return meet == -1 ? UNREACHABLE : forward.getDist(meet) + backward.getDist(meet);
+    } finally {
+      pool.offer(forward);
+      pool.offer(backward);
+    }
+  }
+
+  /**
+   * @return die Knoten eines kürzesten Weges im Originalgraphen von source
+   *         bis target oder null, wenn target nicht erreichbar ist
+   */
+  public int[] path(int source, int target) {
+    SearchWorkspace forward = acquire();
+    SearchWorkspace backward = acquire();
+    try {
+      int meet = search(forward, backward, source, target);
+      if (meet == -1) {
+        return null;
+      }
+      // Weg im Suchgraphen: source .. meet vorwärts, meet .. target rückwärts
+      int[] upPart = forward.pathTo(source, meet);
+      int[] downPart = backward.pathTo(target, meet);
+
+      PathBuilder path = new PathBuilder(source);
+      for (int i = 0; i + 1 < upPart.length; i++) {
+        unpack(upPart[i], upPart[i + 1], path);
+      }
+      for (int i = downPart.length - 1; i > 0; i--) {
+        unpack(downPart[i], downPart[i - 1], path);
+      }
+      return path.toArray();
+    } finally {
+      pool.offer(forward);
+      pool.offer(backward);
+    }
+  }
+
+  private SearchWorkspace acquire() {
+    SearchWorkspace ws = pool.poll();
+    if (ws == null) {
+      ws = new SearchWorkspace(rank.length);
+    }
+    ws.reset();
+    return ws;
+  }
+
+  /**
+   * Bidirektionale Aufwärtssuche; jede Seite stoppt, sobald ihr Minimum die
+   * beste bisherige Verbindung nicht mehr unterbieten kann
+   *
+   * @return der höchste Knoten eines kürzesten Weges oder -1
+   */
+  private int search(SearchWorkspace forward, SearchWorkspace backward, int source, int target) {
+    if (source < 0 || source >= rank.length || target < 0 || target >= rank.length) {
+      throw new IllegalArgumentException("Knoten existiert nicht");
+    }
+    IndexedDAryHeap forwardHeap = forward.getHeap();
+    IndexedDAryHeap backwardHeap = backward.getHeap();
+    forward.set(source, 0, -1);
+    forwardHeap.insert(source, 0);
+    backward.set(target, 0, -1);
+    backwardHeap.insert(target, 0);
+
+    int best = UNREACHABLE;
+    int meet = -1;
+    while (true) {
+      boolean forwardOpen = !forwardHeap.isEmpty() && forwardHeap.peekKey() < best;
+      boolean backwardOpen = !backwardHeap.isEmpty() && backwardHeap.peekKey() < best;
+      if (!forwardOpen && !backwardOpen) {
+        break;
+      }
+      boolean forwardStep = forwardOpen && (!backwardOpen || forwardHeap.peekKey() <= backwardHeap.peekKey());
+      CsrGraph g = forwardStep ? up : down;
+      SearchWorkspace ws = forwardStep ? forward : backward;
+      SearchWorkspace other = forwardStep ? backward : forward;
+      IndexedDAryHeap heap = ws.getHeap();
+
+      int curr = heap.poll();
+      int currDist = ws.getDist(curr);
+      int otherDist = other.getDist(curr);
+      if (otherDist != UNREACHABLE && currDist + otherDist < best) {
+        best = currDist + otherDist;
+        meet = curr;
+      }
+      for (int e = g.firstEdge(curr), end = g.endEdge(curr); e < end; e++) {
+        int neighbor = g.getTarget(e);
+        int alternativeDist = currDist + g.getWeight(e);
+        if (alternativeDist < ws.getDist(neighbor) && !heap.isSettled(neighbor)) {
+          ws.set(neighbor, alternativeDist, curr);
+          heap.insertOrDecrease(neighbor, alternativeDist);
+        }
+      }
+    }
+    return meet;
+  }
+
+  /**
+   * Entpackt die Kante a -&gt; b (in Originalrichtung) rekursiv über die
+   * Mittelknoten und hängt die Knoten nach a an den Weg an
+   */
+  private void unpack(int a, int b, PathBuilder path) {
+    int[] stack = new int[16];
+    int top = 0;
+    stack[top++] = a;
+    stack[top++] = b;
+    while (top > 0) {
+      int to = stack[--top];
+      int from = stack[--top];
+      int middle = middle(from, to);
+      if (middle == -1) {
+        path.add(to);
+      } else {
+        if (top + 4 > stack.length) {
+          stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        // zuerst from -> middle, danach middle -> to
+        stack[top++] = middle;
+        stack[top++] = to;
+        stack[top++] = from;
+        stack[top++] = middle;
+      }
+    }
+  }
+
+  /**
+   * @return Mittelknoten der Kante a -&gt; b oder -1 bei einer Originalkante;
+   *         die Kante liegt beim Knoten mit dem kleineren Rang
+   */
+  private int middle(int a, int b) {
+    if (rank[a] < rank[b]) {
+      for (int e = up.firstEdge(a), end = up.endEdge(a); e < end; e++) {
+        if (up.getTarget(e) == b) {
+          return upMiddle[e];
+        }
+      }
+    } else {
+      for (int e = down.firstEdge(b), end = down.endEdge(b); e < end; e++) {
+        if (down.getTarget(e) == a) {
+          return downMiddle[e];
+        }
+      }
+    }
+    throw new IllegalStateException("Kante " + a + " -> " + b + " fehlt in der Hierarchie");
+  }
+
+  /**
+   * Wachsendes int-Array für den entpackten Weg
+   */
+  private static class PathBuilder {
+    private int[] vertices = new int[16];
+    private int size;
+
+    PathBuilder(int source) {
+      add(source);
+    }
+
+    void add(int v) {
+      if (size == vertices.length) {
+        vertices = Arrays.copyOf(vertices, size * 2);
+      }
+      vertices[size++] = v;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(vertices, size);
+    }
+  }
+}
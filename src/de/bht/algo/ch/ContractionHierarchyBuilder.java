@@ -0,0 +1,415 @@
+package de.bht.algo.ch;
+
+import de.bht.algo.dijkstra.IndexedDAryHeap;
+import de.bht.algo.dijkstra.SearchWorkspace;
+import graph.CsrGraph;
+import graph.Edge;
+import graph.Graph;
+import graph.IndexedGraph;
+import graph.Vertex;
+
+import java.util.Arrays;
+
+/**
+ * Vorberechnung einer {@link ContractionHierarchy}. Die Knoten werden
+ * nacheinander kontrahiert, d.h. aus dem Restgraphen entfernt; wo dabei ein
+ * kuerzester Weg u -&gt; v -&gt; w verloren ginge, wird eine Abkuerzung
+ * (Shortcut) u -&gt; w mit v als Mittelknoten eingefuegt. Ob der Weg ueber v
+ * wirklich noetig ist, klaert eine begrenzte Zeugensuche (witness search) von
+ * u aus, die v nicht benutzt.
+ * <p>
+ * Die Reihenfolge bestimmt eine Prioritaet aus Kantendifferenz (eingefuegte
+ * Shortcuts minus entfernte Kanten) und der Anzahl bereits kontrahierter
+ * Nachbarn; sie wird vor dem Kontrahieren neu berechnet (lazy update) und fuer
+ * die Nachbarn danach aktualisiert.
+ */
+public class ContractionHierarchyBuilder {
+
+  /** Standardgrenze fuer die Anzahl abgearbeiteter Knoten je Zeugensuche */
+  public static final int DEFAULT_WITNESS_SETTLE_LIMIT = 500;
+
+  // Zeugensuchen fuer die Prioritaet duerfen kuerzer sein: ein ueberschaetzter
+  // Shortcut verschiebt nur die Reihenfolge
+  private static final int SIMULATION_SETTLE_LIMIT = 50;
+
+  // Gewicht der Kantendifferenz gegenueber den kontrahierten Nachbarn
+  private static final int EDGE_DIFFERENCE_FACTOR = 2;
+
+  private final int n;
+  private int witnessSettleLimit = DEFAULT_WITNESS_SETTLE_LIMIT;
+
+  // Restgraph: ausgehende und eingehende Kanten je noch nicht kontrahiertem
+  // Knoten (Endknoten, Gewicht, Mittelknoten oder -1)
+  private final int[][] outTarget;
+  private final int[][] outWeight;
+  private final int[][] outMiddle;
+  private final int[] outSize;
+  private final int[][] inSource;
+  private final int[][] inWeight;
+  private final int[][] inMiddle;
+  private final int[] inSize;
+
+  private final int[] deletedNeighbours;
+
+  // Kanten der fertigen Hierarchie
+  private final EdgeBuffer up;
+  private final EdgeBuffer down;
+
+  private final SearchWorkspace witness;
+  private final int[] targetMark;
+  private final int[] neighbourMark;
+  private int targetGeneration;
+
+  /**
+   * @param graph
+   *          der Graph mit nicht-negativen Kantengewichten
+   */
+  public ContractionHierarchyBuilder(IndexedGraph graph) {
+    n = graph.getNumberVertices();
+    outTarget = new int[n][];
+    outWeight = new int[n][];
+    outMiddle = new int[n][];
+    outSize = new int[n];
+    inSource = new int[n][];
+    inWeight = new int[n][];
+    inMiddle = new int[n][];
+    inSize = new int[n];
+    for (int v = 0; v < n; v++) {
+      int degree = graph.endEdge(v) - graph.firstEdge(v);
+      outTarget[v] = new int[Math.max(degree, 2)];
+      outWeight[v] = new int[Math.max(degree, 2)];
+      outMiddle[v] = new int[Math.max(degree, 2)];
+      inSource[v] = new int[2];
+      inWeight[v] = new int[2];
+      inMiddle[v] = new int[2];
+    }
+    for (int u = 0; u < n; u++) {
+      for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+        if (graph.getWeight(e) < 0) {
+          throw new IllegalArgumentException("Der Graph enthält negative Kantengewichte.");
+        }
+        if (graph.getTarget(e) != u) {
+          addEdge(u, graph.getTarget(e), graph.getWeight(e), -1);
+        }
+      }
+    }
+    deletedNeighbours = new int[n];
+    up = new EdgeBuffer(graph.getNumberEdges());
+    down = new EdgeBuffer(graph.getNumberEdges());
+    witness = new SearchWorkspace(n);
+    targetMark = new int[n];
+    neighbourMark = new int[n];
+    Arrays.fill(neighbourMark, -1);
+  }
+
+  /**
+   * @param graph
+   *          der Graph mit Knoten-Id's 0 .. n-1 und nicht-negativen
+   *          Kantengewichten
+   */
+  public <V extends Vertex, E extends Edge<V>> ContractionHierarchyBuilder(Graph<V, E> graph) {
+    this(CsrGraph.fromGraph(graph));
+  }
+
+  /**
+   * @param limit
+   *          wie viele Knoten eine Zeugensuche hoechstens abarbeitet; kleinere
+   *          Werte beschleunigen die Vorberechnung, erzeugen aber mehr
+   *          (ueberfluessige) Shortcuts
+   */
+  public void setWitnessSettleLimit(int limit) {
+    this.witnessSettleLimit = limit;
+  }
+
+  /**
+   * Kontrahiert alle Knoten und erzeugt die Hierarchie. Der Builder kann
+   * danach nicht erneut verwendet werden.
+   *
+   * @return die Contraction Hierarchy
+   */
+  public ContractionHierarchy build() {
+    IndexedDAryHeap queue = new IndexedDAryHeap(n);
+    for (int v = 0; v < n; v++) {
+      queue.insert(v, priority(v));
+    }
+
+    int[] rank = new int[n];
+    int nextRank = 0;
+    while (!queue.isEmpty()) {
+      int v = queue.poll();
+      // lazy update: hat sich die Prioritaet verschlechtert, erst die anderen
+      int p = priority(v);
+      if (!queue.isEmpty() && p > queue.peekKey()) {
+        queue.insert(v, p);
+        continue;
+      }
+
+      contract(v, false);
+      rank[v] = nextRank++;
+
+      // Nachbarn neu bewerten; bei ungerichteten Graphen steht ein Nachbar in
+      // beiden Listen, soll aber nur einmal zaehlen
+      for (int i = 0; i < outSize[v]; i++) {
+        updateNeighbour(queue, outTarget[v][i], nextRank);
+      }
+      for (int i = 0; i < inSize[v]; i++) {
+        updateNeighbour(queue, inSource[v][i], nextRank);
+      }
+      outSize[v] = 0;
+      inSize[v] = 0;
+    }
+
+    int[] upOffsets = new int[n + 1];
+    int[] upTargets = new int[up.size];
+    int[] upWeights = new int[up.size];
+    int[] upMiddles = new int[up.size];
+    up.toCsr(n, upOffsets, upTargets, upWeights, upMiddles);
+    int[] downOffsets = new int[n + 1];
+    int[] downTargets = new int[down.size];
+    int[] downWeights = new int[down.size];
+    int[] downMiddles = new int[down.size];
+    down.toCsr(n, downOffsets, downTargets, downWeights, downMiddles);
+
+    return new ContractionHierarchy(rank, new CsrGraph(upOffsets, upTargets, upWeights), upMiddles, new CsrGraph(
+        downOffsets, downTargets, downWeights), downMiddles);
+  }
+
+  private void updateNeighbour(IndexedDAryHeap queue, int u, int round) {
+    if (neighbourMark[u] == round) {
+      return;
+    }
+    neighbourMark[u] = round;
+    deletedNeighbours[u]++;
+    if (queue.contains(u)) {
+      queue.changeKey(u, priority(u));
+    }
+  }
+
+  /**
+   * Prioritaet eines Knotens: gewichtete Kantendifferenz plus Anzahl
+   * kontrahierter Nachbarn; kleinere Werte werden zuerst kontrahiert
+   */
+  private int priority(int v) {
+    int shortcuts = contract(v, true);
+    int edgeDifference = shortcuts - outSize[v] - inSize[v];
+    return EDGE_DIFFERENCE_FACTOR * edgeDifference + deletedNeighbours[v];
+  }
+
+  /**
+   * Kontrahiert v bzw. zaehlt nur die noetigen Shortcuts
+   *
+   * @param simulate
+   *          true, wenn nur gezaehlt werden soll
+   * @return Anzahl der (noetigen) Shortcuts
+   */
+  private int contract(int v, boolean simulate) {
+    int shortcuts = 0;
+    for (int i = 0; i < inSize[v]; i++) {
+      int u = inSource[v][i];
+      int inW = inWeight[v][i];
+
+      // Ziele der Zeugensuche markieren
+      nextMark();
+      int targets = 0;
+      int maxDist = 0;
+      for (int j = 0; j < outSize[v]; j++) {
+        int w = outTarget[v][j];
+        if (w != u) {
+          maxDist = Math.max(maxDist, inW + outWeight[v][j]);
+          if (targetMark[w] != targetGeneration) {
+            targetMark[w] = targetGeneration;
+            targets++;
+          }
+        }
+      }
+      if (targets == 0) {
+        continue;
+      }
+
+      witnessSearch(u, v, maxDist, targets, simulate ? SIMULATION_SETTLE_LIMIT : witnessSettleLimit);
+      for (int j = 0; j < outSize[v]; j++) {
+        int w = outTarget[v][j];
+        int viaV = inW + outWeight[v][j];
+        if (w != u && witness.getDist(w) > viaV) {
+          shortcuts++;
+          if (!simulate) {
+            addEdge(u, w, viaV, v);
+          }
+        }
+      }
+    }
+
+    if (!simulate) {
+      // Kanten von v gehen in die Hierarchie ein und werden aus dem Restgraph
+      // entfernt
+      for (int i = 0; i < outSize[v]; i++) {
+        up.add(v, outTarget[v][i], outWeight[v][i], outMiddle[v][i]);
+        removeIn(outTarget[v][i], v);
+      }
+      for (int i = 0; i < inSize[v]; i++) {
+        down.add(v, inSource[v][i], inWeight[v][i], inMiddle[v][i]);
+        removeOut(inSource[v][i], v);
+      }
+    }
+    return shortcuts;
+  }
+
+  /**
+   * Macht alle Markierungen in targetMark ungueltig
+   */
+  private void nextMark() {
+    if (++targetGeneration == 0) {
+      Arrays.fill(targetMark, 0);
+      targetGeneration = 1;
+    }
+  }
+
+  /**
+   * Begrenzter Dijkstra von source im Restgraph ohne den Knoten avoid; endet,
+   * sobald alle markierten Ziele abgearbeitet sind, das Minimum maxDist
+   * uebersteigt oder settleLimit Knoten abgearbeitet sind
+   */
+  private void witnessSearch(int source, int avoid, int maxDist, int targets, int settleLimit) {
+    witness.reset();
+    IndexedDAryHeap heap = witness.getHeap();
+    witness.set(source, 0, -1);
+    heap.insert(source, 0);
+    int settled = 0;
+    while (!heap.isEmpty() && heap.peekKey() <= maxDist && settled < settleLimit) {
+      int curr = heap.poll();
+      settled++;
+      if (targetMark[curr] == targetGeneration && --targets == 0) {
+        return;
+      }
+      int currDist = witness.getDist(curr);
+      for (int i = 0; i < outSize[curr]; i++) {
+        int next = outTarget[curr][i];
+        if (next == avoid) {
+          continue;
+        }
+        int alternativeDist = currDist + outWeight[curr][i];
+        if (alternativeDist < witness.getDist(next) && !heap.isSettled(next)) {
+          witness.set(next, alternativeDist, curr);
+          heap.insertOrDecrease(next, alternativeDist);
+        }
+      }
+    }
+  }
+
+  /**
+   * Fuegt eine Kante in den Restgraph ein; gibt es schon eine Kante u -&gt; w,
+   * bleibt die kuerzere erhalten
+   */
+  private void addEdge(int u, int w, int weight, int middle) {
+    for (int i = 0; i < outSize[u]; i++) {
+      if (outTarget[u][i] == w) {
+        if (weight < outWeight[u][i]) {
+          outWeight[u][i] = weight;
+          outMiddle[u][i] = middle;
+          for (int j = 0; j < inSize[w]; j++) {
+            if (inSource[w][j] == u) {
+              inWeight[w][j] = weight;
+              inMiddle[w][j] = middle;
+            }
+          }
+        }
+        return;
+      }
+    }
+    if (outSize[u] == outTarget[u].length) {
+      int capacity = outSize[u] * 2;
+      outTarget[u] = Arrays.copyOf(outTarget[u], capacity);
+      outWeight[u] = Arrays.copyOf(outWeight[u], capacity);
+      outMiddle[u] = Arrays.copyOf(outMiddle[u], capacity);
+    }
+    outTarget[u][outSize[u]] = w;
+    outWeight[u][outSize[u]] = weight;
+    outMiddle[u][outSize[u]] = middle;
+    outSize[u]++;
+
+    if (inSize[w] == inSource[w].length) {
+      int capacity = inSize[w] * 2;
+      inSource[w] = Arrays.copyOf(inSource[w], capacity);
+      inWeight[w] = Arrays.copyOf(inWeight[w], capacity);
+      inMiddle[w] = Arrays.copyOf(inMiddle[w], capacity);
+    }
+    inSource[w][inSize[w]] = u;
+    inWeight[w][inSize[w]] = weight;
+    inMiddle[w][inSize[w]] = middle;
+    inSize[w]++;
+  }
+
+  private void removeOut(int u, int w) {
+    for (int i = 0; i < outSize[u]; i++) {
+      if (outTarget[u][i] == w) {
+        int last = --outSize[u];
+        outTarget[u][i] = outTarget[u][last];
+        outWeight[u][i] = outWeight[u][last];
+        outMiddle[u][i] = outMiddle[u][last];
+        return;
+      }
+    }
+  }
+
+  private void removeIn(int w, int u) {
+    for (int i = 0; i < inSize[w]; i++) {
+      if (inSource[w][i] == u) {
+        int last = --inSize[w];
+        inSource[w][i] = inSource[w][last];
+        inWeight[w][i] = inWeight[w][last];
+        inMiddle[w][i] = inMiddle[w][last];
+        return;
+      }
+    }
+  }
+
+  /**
+   * Wachsende Kantenliste, die am Ende nach Startknoten sortiert wird
+   */
+  private static class EdgeBuffer {
+    private int[] from;
+    private int[] to;
+    private int[] weight;
+    private int[] middle;
+    private int size;
+
+    EdgeBuffer(int capacity) {
+      capacity = Math.max(capacity, 16);
+      from = new int[capacity];
+      to = new int[capacity];
+      weight = new int[capacity];
+      middle = new int[capacity];
+    }
+
+    void add(int f, int t, int w, int m) {
+      if (size == from.length) {
+        int capacity = size * 2;
+        from = Arrays.copyOf(from, capacity);
+        to = Arrays.copyOf(to, capacity);
+        weight = Arrays.copyOf(weight, capacity);
+        middle = Arrays.copyOf(middle, capacity);
+      }
+      from[size] = f;
+      to[size] = t;
+      weight[size] = w;
+      middle[size] = m;
+      size++;
+    }
+
+    void toCsr(int n, int[] offsets, int[] targets, int[] weights, int[] middles) {
+      for (int i = 0; i < size; i++) {
+        offsets[from[i] + 1]++;
+      }
+      for (int v = 0; v < n; v++) {
+        offsets[v + 1] += offsets[v];
+      }
+      int[] next = Arrays.copyOf(offsets, n);
+      for (int i = 0; i < size; i++) {
+        int pos = next[from[i]]++;
+        targets[pos] = to[i];
+        weights[pos] = weight[i];
+        middles[pos] = middle[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,346 @@
+package de.bht.algo.deltastepping;
+
+import graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Delta-Stepping (Meyer/Sanders): paralleler Algorithmus fuer kuerzeste Wege
+ * von einem Startknoten, mit denselben Distanzen wie Dijkstra.
+ * <p>
+ * Die Knoten liegen nach vorlaeufiger Distanz in Eimern (Buckets) der Breite
+ * delta. Der kleinste nicht leere Eimer wird als Ganzes bearbeitet: zuerst
+ * werden wiederholt die leichten Kanten (Gewicht &lt;= delta) seiner Knoten
+ * relaxiert, bis er leer bleibt, dann einmal die schweren Kanten aller
+ * entnommenen Knoten. Innerhalb einer Phase laufen die Relaxationen parallel;
+ * die Distanzen stehen in einem {@link AtomicIntegerArray} und werden per CAS
+ * verringert.
+ * <p>
+ * Jeder Worker hat eigene Eimer, in die er die von ihm verbesserten Knoten
+ * legt; zwischen den Phasen werden die Eimer der Worker zur naechsten Front
+ * zusammengefuehrt (dabei fallen doppelte Eintraege weg). So braucht das
+ * Einfuegen keine Synchronisation. Die Eimer sind zyklisch, denn alle offenen
+ * Distanzen liegen hoechstens maxWeight + delta ueber dem aktuellen Eimer.
+ * <p>
+ * Kleine delta naehern sich Dijkstra (wenig unnoetige Arbeit, aber viele
+ * Phasen), grosse delta Bellman-Ford (wenige Phasen, viele erneute
+ * Relaxationen).
+ */
+public class DeltaStepping {
+
+  /** Distanz fuer nicht erreichbare Knoten */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  // kleinere Fronten werden ohne Executor im aufrufenden Thread bearbeitet
+  private static final int PARALLEL_THRESHOLD = 1024;
+
+  // so viele Knoten der Front holt sich ein Worker auf einmal
+  private static final int CHUNK_SIZE = 256;
+
+  private final int n;
+  private final int delta;
+  // Kanten je Knoten: erst die leichten (offsets[v] .. lightEnd[v]-1), dann die
+  // schweren (lightEnd[v] .. offsets[v+1]-1)
+  private final int[] offsets;
+  private final int[] lightEnd;
+  private final int[] targets;
+  private final int[] weights;
+  private final int numBuckets;
+
+  /**
+   * @param graph
+   *          der Graph mit nicht-negativen Kantengewichten; wird kopiert
+   * @param delta
+   *          die Breite der Eimer (siehe {@link #suggestDelta})
+   */
+  public DeltaStepping(IndexedGraph graph, int delta) {
+    if (delta < 1) {
+      throw new IllegalArgumentException("delta muss mindestens 1 sein");
+    }
+    this.delta = delta;
+    n = graph.getNumberVertices();
+    int m = graph.getNumberEdges();
+    offsets = new int[n + 1];
+    lightEnd = new int[n];
+    targets = new int[m];
+    weights = new int[m];
+    int maxWeight = 0;
+    int pos = 0;
+    for (int v = 0; v < n; v++) {
+      offsets[v] = pos;
+      // leichte Kanten nach vorne, schwere nach hinten
+      int light = pos;
+      int heavy = pos + graph.endEdge(v) - graph.firstEdge(v);
+      for (int e = graph.firstEdge(v), end = graph.endEdge(v); e < end; e++) {
+        int w = graph.getWeight(e);
+        if (w < 0) {
+          throw new IllegalArgumentException("Der Graph enthält negative Kantengewichte.");
+        }
+        maxWeight = Math.max(maxWeight, w);
+        int slot = w <= delta ? light++ : --heavy;
+        targets[slot] = graph.getTarget(e);
+        weights[slot] = w;
+      }
+      lightEnd[v] = light;
+      pos += graph.endEdge(v) - graph.firstEdge(v);
+    }
+    offsets[n] = pos;
+    numBuckets = maxWeight / delta + 2;
+  }
+
+  /**
+   * Schlaegt delta als maximales Kantengewicht geteilt durch den mittleren
+   * Knotengrad vor; damit hat ein Knoten im Mittel etwa eine leichte Kante je
+   * Eimerbreite
+   */
+  public static int suggestDelta(IndexedGraph graph) {
+    int maxWeight = Math.max(1, graph.getMaxWeight());
+    int degree = (int) Math.max(1, graph.getNumberEdges() / Math.max(1, (long) graph.getNumberVertices()));
+    return Math.max(1, maxWeight / degree);
+  }
+
+  public int getDelta() {
+    return delta;
+  }
+
+  /**
+   * Berechnet die Distanzen vom Startknoten zu allen Knoten
+   *
+   * @param executor
+   *          der Executor fuer die Worker
+   * @param workers
+   *          Anzahl der Worker (in der Regel die Anzahl der Threads des
+   *          Executors)
+   * @return ein neues Array mit den Distanzen ({@link #UNREACHABLE} fuer nicht
+   *         erreichbare Knoten)
+   * @throws InterruptedException
+   *           wenn der Thread beim Warten unterbrochen wird
+   */
+  public int[] distances(int source, ExecutorService executor, int workers) throws InterruptedException {
+    if (source < 0 || source >= n) {
+      throw new IllegalArgumentException("Knoten " + source + " existiert nicht");
+    }
+    if (workers < 1) {
+      throw new IllegalArgumentException("Es wird mindestens ein Worker benoetigt");
+    }
+    return new Run(executor, workers).distances(source);
+  }
+
+  /**
+   * Der Zustand einer einzelnen Berechnung
+   */
+  private class Run {
+    private final ExecutorService executor;
+    private final Worker[] workers;
+    private final AtomicIntegerArray dist = new AtomicIntegerArray(n);
+    // wann ein Knoten zuletzt in eine Front aufgenommen wurde (Nummer der
+    // Zusammenfuehrung), um doppelte Eintraege zu entfernen
+    private final int[] mark = new int[n];
+    private int round;
+    private int[] front = new int[16];
+    private int frontSize;
+    // die im aktuellen Eimer entnommenen Knoten
+    private final IntList removed = new IntList();
+
+    Run(ExecutorService executor, int workers) {
+      this.executor = executor;
+      this.workers = new Worker[workers];
+      for (int i = 0; i < workers; i++) {
+        this.workers[i] = new Worker();
+      }
+    }
+
+    int[] distances(int source) throws InterruptedException {
+      for (int v = 0; v < n; v++) {
+        dist.set(v, UNREACHABLE);
+      }
+      dist.set(source, 0);
+      workers[0].buckets[0].add(source);
+
+      int bucket = 0;
+      while (true) {
+        // kleinsten nicht leeren Eimer suchen
+        int skipped = 0;
+        while (skipped < numBuckets && isEmpty(bucket % numBuckets)) {
+          bucket++;
+          skipped++;
+        }
+        if (skipped == numBuckets) {
+          break;
+        }
+        int slot = bucket % numBuckets;
+
+        // leichte Kanten, bis der Eimer leer bleibt
+        while (gather(slot, bucket)) {
+          relaxFront(true);
+        }
+        // schwere Kanten aller entnommenen Knoten
+        if (gatherRemoved()) {
+          relaxFront(false);
+        }
+        bucket++;
+      }
+
+      int[] result = new int[n];
+      for (int v = 0; v < n; v++) {
+        result[v] = dist.get(v);
+      }
+      return result;
+    }
+
+    private boolean isEmpty(int slot) {
+      for (Worker w : workers) {
+        if (w.buckets[slot].size > 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Fuehrt die Eimer slot aller Worker zur Front zusammen; veraltete (Knoten
+     * inzwischen in einem kleineren Eimer) und doppelte Eintraege fallen weg
+     *
+     * @return true, wenn die Front nicht leer ist
+     */
+    private boolean gather(int slot, int bucket) {
+      round++;
+      frontSize = 0;
+      for (Worker w : workers) {
+        IntList list = w.buckets[slot];
+        for (int i = 0; i < list.size; i++) {
+          int v = list.values[i];
+          if (mark[v] != round && dist.get(v) / delta == bucket) {
+            mark[v] = round;
+            addToFront(v);
+            removed.add(v);
+          }
+        }
+        list.size = 0;
+      }
+      return frontSize > 0;
+    }
+
+    /**
+     * Macht die im aktuellen Eimer entnommenen Knoten (ohne Wiederholungen) zur
+     * Front
+     *
+     * @return true, wenn die Front nicht leer ist
+     */
+    private boolean gatherRemoved() {
+      round++;
+      frontSize = 0;
+      for (int i = 0; i < removed.size; i++) {
+        int v = removed.values[i];
+        if (mark[v] != round) {
+          mark[v] = round;
+          addToFront(v);
+        }
+      }
+      removed.size = 0;
+      return frontSize > 0;
+    }
+
+    private void addToFront(int v) {
+      if (frontSize == front.length) {
+        front = Arrays.copyOf(front, front.length * 2);
+      }
+      front[frontSize++] = v;
+    }
+
+    /**
+     * Relaxiert die leichten bzw. schweren Kanten aller Knoten der Front
+     */
+    private void relaxFront(final boolean light) throws InterruptedException {
+      if (frontSize < PARALLEL_THRESHOLD || workers.length == 1) {
+        workers[0].relax(front, 0, frontSize, light);
+        return;
+      }
+      final int[] currentFront = front;
+      final int size = frontSize;
+      final AtomicInteger next = new AtomicInteger();
+      List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(workers.length);
+      for (final Worker w : workers) {
+        tasks.add(new Callable<Void>() {
+          @Override
+          public Void call() {
+            for (int first = next.getAndAdd(CHUNK_SIZE); first < size; first = next.getAndAdd(CHUNK_SIZE)) {
+              w.relax(currentFront, first, Math.min(first + CHUNK_SIZE, size), light);
+            }
+            return null;
+          }
+        });
+      }
+      for (Future<Void> f : executor.invokeAll(tasks)) {
+        try {
+          f.get();
+        } catch (ExecutionException e) {
+          throw new RuntimeException("Delta-Stepping-Phase fehlgeschlagen", e.getCause());
+        }
+      }
+    }
+
+    /**
+     * Die Eimer eines Workers; nur der Worker selbst schreibt hinein, gelesen
+     * wird erst nach dem Ende der Phase
+     */
+    private class Worker {
+      final IntList[] buckets = new IntList[numBuckets];
+
+      Worker() {
+        for (int i = 0; i < numBuckets; i++) {
+          buckets[i] = new IntList();
+        }
+      }
+
+      void relax(int[] front, int first, int end, boolean light) {
+        for (int i = first; i < end; i++) {
+          int v = front[i];
+          int d = dist.get(v);
+          int from = light ? offsets[v] : lightEnd[v];
+          int to = light ? lightEnd[v] : offsets[v + 1];
+          for (int e = from; e < to; e++) {
+            relax(targets[e], d + weights[e]);
+          }
+        }
+      }
+
+      /**
+       * Verringert die Distanz von v per CAS auf d, falls d kleiner ist
+       */
+      private void relax(int v, int d) {
+        int current = dist.get(v);
+        while (d < current) {
+          if (dist.compareAndSet(v, current, d)) {
+            buckets[(d / delta) % numBuckets].add(v);
+            return;
+          }
+          current = dist.get(v);
+        }
+      }
+    }
+  }
+
+  /**
+   * Eine wachsende Liste von int-Werten
+   */
+  private static class IntList {
+    int[] values = new int[16];
+    int size;
+
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+  }
+}
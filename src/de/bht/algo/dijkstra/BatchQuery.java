@@ -0,0 +1,163 @@
+package de.bht.algo.dijkstra;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Viele One-to-Many-Anfragen auf einmal, z.B. Distanztabellen fuer die
+ * Tourenplanung. Jede Anfrage ist ein Dijkstra vom Startknoten, der abbricht,
+ * sobald alle ihre Zielknoten abgearbeitet sind.
+ * <p>
+ * Die Anfragen laufen auf einem Executor. Jeder Worker holt sich einmal einen
+ * {@link SearchWorkspace} aus dem Pool der {@link ShortestPathEngine} und
+ * benutzt ihn fuer alle Anfragen, die er bearbeitet; die Startknoten verteilt
+ * ein gemeinsamer Zaehler. Die Ergebnisse sind primitive int-Arrays.
+ */
+public class BatchQuery {
+
+  private final ShortestPathEngine engine;
+  private final ExecutorService executor;
+  private final int workers;
+
+  /**
+   * @param engine
+   *          die Engine, deren Graph abgefragt wird
+   * @param executor
+   *          der Executor fuer die Worker
+   * @param workers
+   *          Anzahl der Worker (in der Regel die Anzahl der Threads des
+   *          Executors)
+   */
+  public BatchQuery(ShortestPathEngine engine, ExecutorService executor, int workers) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Es wird mindestens ein Worker benoetigt");
+    }
+    this.engine = engine;
+    this.executor = executor;
+    this.workers = workers;
+  }
+
+  /**
+   * Beantwortet mehrere One-to-Many-Anfragen
+   *
+   * @param sources
+   *          die Startknoten der Anfragen
+   * @param targets
+   *          targets[i] sind die Zielknoten der Anfrage i
+   * @return result[i][j] ist die Distanz von sources[i] nach targets[i][j] oder
+   *         {@link ShortestPathEngine#UNREACHABLE}
+   * @throws InterruptedException
+   *           wenn der Thread beim Warten unterbrochen wird
+   */
+  public int[][] distances(final int[] sources, final int[][] targets) throws InterruptedException {
+    if (sources.length != targets.length) {
+      throw new IllegalArgumentException("Zu jedem Startknoten gehoert genau eine Liste von Zielen");
+    }
+    for (int i = 0; i < sources.length; i++) {
+      engine.checkVertex(sources[i]);
+      for (int t : targets[i]) {
+        engine.checkVertex(t);
+      }
+    }
+    final int[][] result = new int[sources.length][];
+    run(sources.length, new Query() {
+      @Override
+      public void answer(SearchWorkspace ws, int i) {
+        engine.searchTargets(ws, sources[i], targets[i]);
+        int[] row = new int[targets[i].length];
+        for (int j = 0; j < row.length; j++) {
+          row[j] = ws.getDist(targets[i][j]);
+        }
+        result[i] = row;
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Berechnet eine Distanztabelle Startknoten x Zielknoten
+   *
+   * @param sources
+   *          die Startknoten (Zeilen)
+   * @param targets
+   *          die Zielknoten (Spalten)
+   * @return die Tabelle zeilenweise: table[i * targets.length + j] ist die
+   *         Distanz von sources[i] nach targets[j] oder
+   *         {@link ShortestPathEngine#UNREACHABLE}
+   * @throws InterruptedException
+   *           wenn der Thread beim Warten unterbrochen wird
+   */
+  public int[] distanceTable(final int[] sources, final int[] targets) throws InterruptedException {
+    for (int s : sources) {
+      engine.checkVertex(s);
+    }
+    for (int t : targets) {
+      engine.checkVertex(t);
+    }
+    if ((long) sources.length * targets.length > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Distanztabelle zu gross: " + sources.length + " x " + targets.length);
+    }
+    final int columns = targets.length;
+    final int[] table = new int[sources.length * columns];
+    run(sources.length, new Query() {
+      @Override
+      public void answer(SearchWorkspace ws, int i) {
+        engine.searchTargets(ws, sources[i], targets);
+        for (int j = 0, base = i * columns; j < columns; j++) {
+          table[base + j] = ws.getDist(targets[j]);
+        }
+      }
+    });
+    return table;
+  }
+
+  /**
+   * Verteilt die Anfragen 0 .. count-1 auf die Worker
+   */
+  private void run(final int count, final Query query) throws InterruptedException {
+    final AtomicInteger next = new AtomicInteger();
+    int tasks = Math.min(workers, count);
+    List<Future<?>> futures = new ArrayList<Future<?>>(tasks);
+    for (int w = 0; w < tasks; w++) {
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() {
+          SearchWorkspace ws = engine.acquire();
+          try {
+            for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+              query.answer(ws, i);
+              ws.reset();
+            }
+          } finally {
+            engine.release(ws);
+          }
+          return null;
+        }
+      }));
+    }
+    for (Future<?> f : futures) {
+      try {
+        f.get();
+      } catch (ExecutionException e) {
+        // die uebrigen Worker nehmen keine neuen Anfragen mehr
+        next.set(count);
+        throw new RuntimeException("Batch-Anfrage fehlgeschlagen", e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Eine einzelne Anfrage eines Batches
+   */
+  private interface Query {
+    /**
+     * Beantwortet Anfrage i mit dem (zurueckgesetzten) Workspace des Workers
+     */
+    void answer(SearchWorkspace ws, int i);
+  }
+}
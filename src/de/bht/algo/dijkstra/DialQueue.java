@@ -0,0 +1,189 @@
+package de.bht.algo.dijkstra;
+
+import java.util.Arrays;
+
+/**
+ * Dials Bucket-Queue fuer kleine ganzzahlige Kantengewichte. Bei Dijkstra
+ * liegen alle offenen Schluessel zwischen dem zuletzt entnommenen Schluessel d
+ * und d + maxWeight; es genuegen daher maxWeight + 1 Eimer, die zyklisch
+ * benutzt werden (Schluessel k liegt im Eimer k mod (maxWeight + 1)). Einfuegen
+ * und decrease-key kosten O(1), poll() ueberspringt hoechstens maxWeight leere
+ * Eimer.
+ * <p>
+ * Jeder Eimer ist eine doppelt verkettete Liste ueber die Slots, so dass ein
+ * Slot bei decrease-key in O(1) umgehaengt werden kann. Eimer und Slots tragen
+ * Generationsstempel, {@link #clear()} kostet also O(1).
+ */
+public class DialQueue implements IntPriorityQueue {
+
+  // Markierungen im Zustands-Array
+  private static final int ABSENT = -1;
+  private static final int SETTLED = -2;
+
+  private final int numBuckets;
+
+  // Eimer -> erster Slot, gueltig wenn headStamp[b] == generation
+  private final int[] head;
+  private final int[] headStamp;
+
+  // Slot -> Nachbarn in der Liste seines Eimers (-1 = keiner), Schluessel und
+  // Eimer oder ABSENT/SETTLED; gueltig wenn stamp[slot] == generation
+  private final int[] next;
+  private final int[] prev;
+  private final int[] keys;
+  private final int[] state;
+  private final int[] stamp;
+  private int generation;
+
+  private int size;
+  // kleinster moeglicher Schluessel (der zuletzt entnommene), -1 bis zum
+  // ersten Einfuegen nach clear()
+  private int cursor;
+
+  /**
+   * @param capacity
+   *          Anzahl der moeglichen Slots (in der Regel die Knotenanzahl)
+   * @param maxWeight
+   *          das groesste Kantengewicht
+   */
+  public DialQueue(int capacity, int maxWeight) {
+    if (maxWeight < 0) {
+      throw new IllegalArgumentException("Das groesste Kantengewicht darf nicht negativ sein");
+    }
+    numBuckets = maxWeight + 1;
+    head = new int[numBuckets];
+    headStamp = new int[numBuckets];
+    next = new int[capacity];
+    prev = new int[capacity];
+    keys = new int[capacity];
+    state = new int[capacity];
+    stamp = new int[capacity];
+    generation = 1;
+    cursor = -1;
+  }
+
+  /**
+   * @return das groesste Kantengewicht, fuer das die Eimer reichen
+   */
+  public int getMaxWeight() {
+    return numBuckets - 1;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public boolean contains(int slot) {
+    return state(slot) >= 0;
+  }
+
+  @Override
+  public boolean isSettled(int slot) {
+    return state(slot) == SETTLED;
+  }
+
+  /**
+   * Fuegt einen Slot ein, der nicht in der Warteschlange liegt
+   *
+   * @throws IllegalArgumentException
+   *           wenn der Schluessel negativ ist oder nicht zwischen dem zuletzt
+   *           entnommenen Schluessel und diesem plus maxWeight liegt
+   */
+  @Override
+  public void insert(int slot, int key) {
+    if (cursor == -1 && key >= 0) {
+      cursor = key;
+    } else if (key < 0 || key < cursor || key - cursor >= numBuckets) {
+      throw new IllegalArgumentException("Schluessel " + key + " liegt nicht im Fenster ab " + cursor);
+    }
+    stamp[slot] = generation;
+    keys[slot] = key;
+    link(slot, key % numBuckets);
+    size++;
+  }
+
+  @Override
+  public boolean insertOrDecrease(int slot, int key) {
+    int b = state(slot);
+    if (b == ABSENT) {
+      insert(slot, key);
+      return true;
+    }
+    if (b >= 0 && key < keys[slot]) {
+      if (key < cursor) {
+        throw new IllegalArgumentException("Schluessel " + key + " liegt nicht im Fenster ab " + cursor);
+      }
+      unlink(slot, b);
+      keys[slot] = key;
+      link(slot, key % numBuckets);
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public int poll() {
+    int b = cursor % numBuckets;
+    while (first(b) == -1) {
+      cursor++;
+      b = b + 1 == numBuckets ? 0 : b + 1;
+    }
+    int slot = head[b];
+    unlink(slot, b);
+    state[slot] = SETTLED;
+    size--;
+    return slot;
+  }
+
+  @Override
+  public void clear() {
+    size = 0;
+    cursor = -1;
+    if (++generation == 0) {
+      // Ueberlauf des Generationszaehlers: einmalig alle Stempel loeschen
+      Arrays.fill(stamp, 0);
+      Arrays.fill(headStamp, 0);
+      generation = 1;
+    }
+  }
+
+  private int state(int slot) {
+    return stamp[slot] == generation ? state[slot] : ABSENT;
+  }
+
+  private int first(int b) {
+    return headStamp[b] == generation ? head[b] : -1;
+  }
+
+  private void link(int slot, int b) {
+    int h = first(b);
+    next[slot] = h;
+    prev[slot] = -1;
+    if (h != -1) {
+      prev[h] = slot;
+    }
+    head[b] = slot;
+    headStamp[b] = generation;
+    state[slot] = b;
+  }
+
+  private void unlink(int slot, int b) {
+    int p = prev[slot];
+    int n = next[slot];
+    if (p == -1) {
+      head[b] = n;
+    } else {
+      next[p] = n;
+    }
+    if (n != -1) {
+      prev[n] = p;
+    }
+  }
+}
@@ -1,15 +1,22 @@
 package de.bht.algo.dijkstra;
 
+import graph.CsrGraph;
 import graph.Edge;
+import graph.EdgeCursor;
 import graph.Graph;
+import graph.IndexedGraph;
 import graph.Vertex;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.PriorityQueue;
 
 import javax.swing.JOptionPane;
 
+import de.bht.algo.metrics.MetricsRegistry;
+import de.bht.algo.metrics.QueryMetrics;
+
 /**
  * Implementierung des Dijkstra-Algorithmus für Graphen mit Knoten und Kanten
  * 
@@ -19,14 +26,71 @@ import javax.swing.JOptionPane;
  */
 public class Dijkstra {
 
+  /**
+   * Die Prioritaetswarteschlange, mit der der Algorithmus arbeitet
+   */
+  public enum QueueMode {
+    /**
+     * java.util.PriorityQueue mit allen Knoten (urspruengliche Variante); eine
+     * Verbesserung entfernt den Knoten und fuegt ihn neu ein, in O(n)
+     */
+    PRIORITY_QUEUE,
+    /**
+     * indizierter d-naerer Heap mit echtem decrease-key
+     */
+    INDEXED_HEAP,
+    /**
+     * Dials Bucket-Queue mit maxWeight + 1 Eimern, fuer kleine Gewichte
+     */
+    DIAL,
+    /**
+     * Radix-Heap, fuer beliebige nicht-negative Gewichte
+     */
+    RADIX_HEAP,
+    /**
+     * DIAL, wenn das groesste Kantengewicht hoechstens
+     * {@link Dijkstra#DIAL_MAX_WEIGHT} ist, sonst INDEXED_HEAP (bei grossen
+     * Gewichten ist der Radix-Heap nicht schneller als der d-naere Heap)
+     */
+    AUTO
+  }
+
+  /**
+   * Bis zu diesem groessten Kantengewicht waehlt {@link QueueMode#AUTO} die
+   * Bucket-Queue
+   */
+  public static final int DIAL_MAX_WEIGHT = 1 << 12;
+
   private final Graph<Vertex, Edge<Vertex>> graph;
+  private final EdgeCursor<Vertex, Edge<Vertex>> cursor;
+  private final IndexedGraph indexedGraph;
   private final Vertex startVertex;
+  private final int startId;
+  private final QueueMode mode;
+  // die tatsaechlich verwendete Warteschlange (bei AUTO erst in init bekannt)
+  private QueueMode activeMode;
+  private boolean bidirectional;
 
-  private final Vertex[] pred;
+  private Vertex[] pred;
   private final ArrayList<Vertex> knoten;
 
-  private final PriorityQueue<Vertex> queue;
+  private PriorityQueue<Vertex> queue;
   private Vertex endVertex;
+  private int endId;
+
+  // Zustand fuer alle Modi ausser PRIORITY_QUEUE, indiziert ueber die Knoten-Id
+  private SearchWorkspace ws;
+  // Engine der bidirektionalen Suche, erst bei der ersten solchen Suche
+  // aufgebaut; bei einem Graph mit der Version, zu der sie gehört
+  private ShortestPathEngine engine;
+  private int engineVersion;
+  private IntPriorityQueue heap;
+
+  private SearchListener listener;
+  // der Listener der laufenden Suche (bei startDijkstra die Textausgabe)
+  private SearchListener activeListener;
+  // nur mit MetricsRegistry.ENABLED
+  private QueryMetrics metrics;
 
   /**
    * Konstruktor für den Dijkstra-Algorithmus
@@ -37,18 +101,131 @@ public class Dijkstra {
    *          die Id des Knotens von dem wir starten möchten
    */
   public Dijkstra(Graph<Vertex, Edge<Vertex>> graph, int startpoint) {
+    this(graph, startpoint, QueueMode.AUTO);
+  }
+
+  /**
+   * Konstruktor für den Dijkstra-Algorithmus mit wählbarer Warteschlange
+   * 
+   * @param graph
+   *          der Graph auf den wir den Dijkstra-Algorithmus anwenden möchten
+   * @param startpoint
+   *          die Id des Knotens von dem wir starten möchten
+   * @param mode
+   *          die zu verwendende Prioritätswarteschlange
+   */
+  public Dijkstra(Graph<Vertex, Edge<Vertex>> graph, int startpoint, QueueMode mode) {
     this.graph = graph;
+    this.cursor = graph.edgeCursor();
+    this.indexedGraph = null;
     this.startVertex = graph.getVertex(startpoint);
+    this.startId = startpoint;
+    this.mode = mode;
+
+    int numVertices = graph.getNumberVertices();
+    knoten = new ArrayList<Vertex>();
+
+    // der Workspace entsteht erst bei der ersten unidirektionalen Suche
+    if (mode == QueueMode.PRIORITY_QUEUE) {
+      // Array initialisieren; indiziert über die Knoten-Id, die auch bei
+      // Lücken in den Ids kleiner als getIdLimit() ist
+      pred = new Vertex[graph.getIdLimit()];
+
+      // Queue initialsieren
+      Comparator<Vertex> comparator = new DijkstraVertexComparator();
+      queue = new PriorityQueue<Vertex>(numVertices, comparator);
+    }
+  }
+
+  /**
+   * Konstruktor für den Dijkstra-Algorithmus auf einem eingefrorenen Graphen
+   * (z.B. {@link graph.CsrGraph}); wählt die Warteschlange automatisch
+   * 
+   * @param graph
+   *          der Graph auf den wir den Dijkstra-Algorithmus anwenden möchten
+   * @param startpoint
+   *          die Nummer des Knotens von dem wir starten möchten
+   */
+  public Dijkstra(IndexedGraph graph, int startpoint) {
+    this(graph, startpoint, QueueMode.AUTO);
+  }
 
-    int numVertices = graph.getVertices().size();
+  /**
+   * Konstruktor für den Dijkstra-Algorithmus auf einem eingefrorenen Graphen
+   * mit wählbarer Warteschlange
+   * 
+   * @param graph
+   *          der Graph auf den wir den Dijkstra-Algorithmus anwenden möchten
+   * @param startpoint
+   *          die Nummer des Knotens von dem wir starten möchten
+   * @param mode
+   *          die zu verwendende Prioritätswarteschlange (nicht PRIORITY_QUEUE)
+   */
+  public Dijkstra(IndexedGraph graph, int startpoint, QueueMode mode) {
+    if (mode == QueueMode.PRIORITY_QUEUE) {
+      throw new IllegalArgumentException("PRIORITY_QUEUE braucht einen Graph mit Knotenobjekten");
+    }
+    this.graph = null;
+    this.cursor = null;
+    this.indexedGraph = graph;
+    this.startVertex = null;
+    this.startId = startpoint;
+    this.mode = mode;
 
-    // Array initialisieren
-    pred = new Vertex[numVertices];
     knoten = new ArrayList<Vertex>();
+  }
+
+  /**
+   * Schaltet die bidirektionale Suche ein oder aus. Sie wird nur verwendet,
+   * wenn ein konkreter Endknoten angegeben ist, und gibt statt der einzelnen
+   * Relaxierungen nur das Ergebnis aus. Die Instanz hält dafür eine
+   * eingefrorene Kopie eines {@link Graph} (und bei Bedarf ihre Umkehrung), bis
+   * sie selbst freigegeben wird; nach einer Änderung des Graphen wird die Kopie
+   * bei der nächsten bidirektionalen Suche neu erzeugt.
+   * 
+   * @param bidirectional
+   *          true, wenn gleichzeitig vom Start- und vom Endknoten aus gesucht
+   *          werden soll
+   */
+  public void setBidirectional(boolean bidirectional) {
+    this.bidirectional = bidirectional;
+  }
 
-    // Queue initialsieren
-    Comparator<Vertex> comparator = new DijkstraVertexComparator();
-    queue = new PriorityQueue<Vertex>(numVertices, comparator);
+  /**
+   * Legt fest, wer die einzelnen Schritte von {@link #search(int)} beobachtet
+   * 
+   * @param listener
+   *          der Listener oder null (Standard), wenn keine Schritte gemeldet
+   *          werden sollen
+   */
+  public void setSearchListener(SearchListener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * @return die Messwerte der letzten Suche oder null, wenn nicht gemessen
+   *         wird (siehe {@link MetricsRegistry})
+   */
+  public QueryMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Führt den Dijkstra-Algorithmus aus, ohne Text zu erzeugen
+   * 
+   * @param target
+   *          die Id des Zielknotens oder -1 für die Entfernungen zu allen
+   *          Knoten
+   * @return das Ergebnis der Suche
+   * @throws IllegalArgumentException
+   *           wenn der Graph negative Kantengewichte hat
+   */
+  public ShortestPathResult search(int target) {
+    ShortestPathResult result = run(target, listener);
+    if (result == null) {
+      throw new IllegalArgumentException("Der Graph enthält negative Kantengewichte.");
+    }
+    return result;
   }
 
   /**
@@ -60,27 +237,229 @@ public class Dijkstra {
    * @return ein String mit der Benutzerausgabe
    */
   public String startDijkstra(String endpoint) {
+    int target = endpoint.equals("alle") ? -1 : Integer.parseInt(endpoint);
 
-    // initialsieren der Standardwerte
-    if (!init()) {
+    // die Verbesserungen werden während der Suche mitgeschrieben, die
+    // Distanzen erst danach aus dem Ergebnis
+    TextTrace trace = new TextTrace();
+    ShortestPathResult result = run(target, trace);
+    if (result == null) {
+      // wenn es nagative Werte gibt, gib eine Warnung aus
+      JOptionPane.showMessageDialog(null,
+          "Dijkstra kann auf diesen Graph nicht angewendet werden. Der Graph enthält negative Kantengewichte.",
+          "Fehler", JOptionPane.ERROR_MESSAGE);
       return "";
     }
 
     // AUSGABE
     StringBuilder returnValue = new StringBuilder();
-    returnValue.append("Start ist Knoten " + startVertex.getId() + "\n");
-
-    // ist ein endVertex gegeben? Wenn nicht endVertex auf null setzen
-    if (!endpoint.equals("alle")) {
-      this.endVertex = graph.getVertex(Integer.parseInt(endpoint));
-      returnValue.append("Ziel ist Knoten " + endVertex.getId() + "\n");
+    returnValue.append("Start ist Knoten " + startId + "\n");
+    if (target != -1) {
+      returnValue.append("Ziel ist Knoten " + target + "\n");
     } else {
-      this.endVertex = null;
       returnValue.append("Ziel ist die kürzeste Verbindung zu allen Knoten. \n");
     }
+    returnValue.append(trace.text);
 
     StringBuilder ergebnisReihenfolge = new StringBuilder();
+    if (target == -1) {
+      for (int i = 0; i < result.getSettledCount(); i++) {
+        int v = result.getSettled(i);
+        ergebnisReihenfolge.append(" Distanz " + startId + " \u2192 " + v + ": " + result.getDistance(v)
+            + " über Knoten " + pathString(result, v) + "\n");
+      }
+    } else if (target < result.getDistances().length && result.isReachable(target)) {
+      ergebnisReihenfolge.append(" Distanz " + startId + "\u2192" + target + ": " + result.getDistance(target)
+          + " über Knoten " + pathString(result, target) + (bidirectional ? " (bidirektional)" : "") + "\n");
+    }
+
+    // letzen "-->" abscheiden und den String zurück geben
+    if (ergebnisReihenfolge.length() >= 2) {
+      returnValue.append(ergebnisReihenfolge.substring(0, ergebnisReihenfolge.length() - 1));
+    } else {
+      returnValue.append("Keine Verbindung gefunden");
+    }
+    return returnValue.append("\n").toString();
+  }
 
+  /**
+   * Führt die Suche aus und meldet die Schritte an den Listener
+   * 
+   * @return das Ergebnis oder null, wenn der Graph negative Kantengewichte hat
+   */
+  private ShortestPathResult run(int target, SearchListener searchListener) {
+    long start = MetricsRegistry.ENABLED ? System.nanoTime() : 0;
+    // die bidirektionale Suche arbeitet auf den Workspaces der Engine und
+    // braucht die eigene Warteschlange nicht
+    boolean bidirectionalSearch = bidirectional && target != -1;
+    // initialsieren der Standardwerte
+    if (bidirectionalSearch ? maxWeight() < 0 : !init()) {
+      return null;
+    }
+    if (MetricsRegistry.ENABLED) {
+      metrics = new QueryMetrics();
+      metrics.begin(start);
+      int queued = bidirectionalSearch ? 0 : activeMode != QueueMode.PRIORITY_QUEUE ? heap.size() : queue.size();
+      for (int i = 1; i <= queued; i++) {
+        metrics.inserted(i);
+      }
+    }
+
+    // ist ein endVertex gegeben? Wenn nicht endVertex auf null setzen
+    this.endId = target;
+    this.endVertex = target != -1 && graph != null ? graph.getVertex(target) : null;
+    this.activeListener = searchListener;
+
+    ShortestPathResult result;
+    if (bidirectionalSearch) {
+      result = searchBidirectional();
+    } else {
+      int[] settled = new int[ws != null ? ws.getCapacity() : pred.length];
+      int settledCount;
+      if (activeMode != QueueMode.PRIORITY_QUEUE) {
+        settledCount = searchIndexedHeap(settled);
+      } else {
+        settledCount = searchPriorityQueue(settled);
+      }
+      if (MetricsRegistry.ENABLED) {
+        metrics.endSearch();
+      }
+      result = createResult(settled, settledCount);
+    }
+    if (MetricsRegistry.ENABLED && metrics.finish()) {
+      MetricsRegistry.getDefault().record(metrics);
+    }
+    return result;
+  }
+
+  /**
+   * Hauptschleife mit einer {@link IntPriorityQueue} (indizierter Heap,
+   * Bucket-Queue oder Radix-Heap): jeder Knoten liegt höchstens einmal in der
+   * Warteschlange, Verbesserungen werden per decrease-key einsortiert
+   * 
+   * @return Anzahl der abgearbeiteten Knoten in settled
+   */
+  private int searchIndexedHeap(int[] settled) {
+    int settledCount = 0;
+    while (!heap.isEmpty()) {
+      // entnimmt den Knoten mit der kleinsten Entfernung und markiert ihn als
+      // abgearbeitet
+      int currId = heap.poll();
+      settled[settledCount++] = currId;
+      if (MetricsRegistry.ENABLED) {
+        metrics.settled();
+      }
+      if (activeListener != null) {
+        activeListener.vertexSettled(currId, ws.getDist(currId));
+      }
+      if (currId == endId) {
+        break;
+      }
+
+      if (indexedGraph != null) {
+        // Nachbarn liegen als Indexbereich in den Kanten-Arrays
+        int e = indexedGraph.firstEdge(currId);
+        int end = indexedGraph.endEdge(currId);
+        if (MetricsRegistry.ENABLED) {
+          metrics.relaxed(end - e);
+        }
+        for (; e < end; e++) {
+          int neighborId = indexedGraph.getTarget(e);
+          if (!heap.isSettled(neighborId)) {
+            relax(currId, neighborId, indexedGraph.getWeight(e));
+          }
+        }
+      } else {
+        // Endknoten und Gewicht kommen direkt aus der Kante, ohne Kopie der
+        // Nachbarliste und ohne Suche in der edgeMap
+        cursor.reset(currId);
+        while (cursor.next()) {
+          int neighborId = cursor.getTarget();
+          if (MetricsRegistry.ENABLED) {
+            metrics.relaxed(1);
+          }
+          // nur noch nicht abgearbeitete Nachbarn relaxieren (O(1)-Prüfung)
+          if (!heap.isSettled(neighborId)) {
+            relax(currId, neighborId, cursor.getWeight());
+          }
+        }
+      }
+    }
+    return settledCount;
+  }
+
+  /**
+   * Bidirektionale Suche über die {@link ShortestPathEngine}. Der Listener
+   * erfährt davon nichts; gemessen werden beide Richtungen zusammen.
+   */
+  private ShortestPathResult searchBidirectional() {
+    ShortestPathEngine engine = engine();
+    SearchWorkspace forward = engine.acquire();
+    SearchWorkspace backward = engine.acquire();
+    try {
+      int n = engine.getGraph().getNumberVertices();
+      int[] dist = new int[n];
+      int[] predIds = new int[n];
+      Arrays.fill(dist, ShortestPathEngine.UNREACHABLE);
+      Arrays.fill(predIds, -1);
+      int meet = engine.searchBidirectional(forward, backward, startId, endId);
+      if (MetricsRegistry.ENABLED) {
+        metrics.add(forward.getMetrics());
+        metrics.endSearch();
+        // die Anfrage zählt als eine der Dijkstra-Instanz; release soll sie
+        // nicht ein zweites Mal eintragen
+        forward.getMetrics().finish();
+      }
+      if (meet == -1) {
+        return new ShortestPathResult(startId, endId, dist, predIds, new int[0], 0);
+      }
+      // nur die Knoten des Weges: bis zum Treffpunkt aus der Vorwärts-, danach
+      // aus der Rückwärtssuche
+      int[] path = ShortestPathEngine.bidirectionalPath(forward, backward, meet, startId, endId);
+      int total = forward.getDist(meet) + backward.getDist(meet);
+      boolean beforeMeet = true;
+      for (int i = 0; i < path.length; i++) {
+        int v = path[i];
+        dist[v] = beforeMeet ? forward.getDist(v) : total - backward.getDist(v);
+        predIds[v] = i == 0 ? -1 : path[i - 1];
+        if (v == meet) {
+          beforeMeet = false;
+        }
+      }
+      return new ShortestPathResult(startId, endId, dist, predIds, path, path.length);
+    } finally {
+      engine.release(forward);
+      engine.release(backward);
+    }
+  }
+
+  /**
+   * Liefert die Engine der bidirektionalen Suche; ein {@link Graph} wird dafür
+   * eingefroren, und zwar erneut, sobald sich seine Version ändert. Den
+   * umgekehrten Graphen baut die Engine selbst erst bei der ersten Suche auf.
+   */
+  private ShortestPathEngine engine() {
+    if (indexedGraph != null) {
+      if (engine == null) {
+        engine = new ShortestPathEngine(indexedGraph);
+      }
+      return engine;
+    }
+    int version = graph.getVersion();
+    if (engine == null || engineVersion != version) {
+      engine = new ShortestPathEngine(CsrGraph.fromGraph(graph));
+      engineVersion = version;
+    }
+    return engine;
+  }
+
+  /**
+   * Hauptschleife der ursprünglichen Variante mit java.util.PriorityQueue
+   * 
+   * @return Anzahl der abgearbeiteten Knoten in settled
+   */
+  private int searchPriorityQueue(int[] settled) {
+    int settledCount = 0;
     while (!queue.isEmpty()) {
       // nimm den Knoten mit der kleinsten Entfernung aus der Queue
       // (Comparable-Implementierung von Vertex siehe Methode
@@ -91,42 +470,57 @@ public class Dijkstra {
       if (currVertex.getDist() == Integer.MAX_VALUE) {
         continue;
       }
-
-      // iteriere durch alle Nachbarknoten des aktuellen Knotens...
-      for (Vertex neighbor : graph.getNeighbours(currVertex)) {
-        // ...die noch nicht abgearbeitet sind
-        if (queue.contains(neighbor)) {
-          // relaxiere die Kante zwischen den beiden Knoten
-          String relaxReturn = relax(currVertex, neighbor);
-          returnValue.append(relaxReturn + "\n");
-        }
+      settled[settledCount++] = currVertex.getId();
+      if (MetricsRegistry.ENABLED) {
+        metrics.settled();
       }
-
-      // wenn es kein EndVertex gibt, gib alle Distanzen aus
-      if (endVertex == null) {
-        ergebnisReihenfolge.append(" Distanz " + startVertex.getId() + " \u2192 " + currVertex.getId() + ": "
-            + currVertex.getDist() + " über Knoten " + pathfinder(currVertex) + "\n");
+      if (activeListener != null) {
+        activeListener.vertexSettled(currVertex.getId(), currVertex.getDist());
       }
 
       // wenn es einen EndVertex gibt und dieser der aktuelle Vertex ist, kann
       // hier abgebrochen werden
-      else if (endVertex != null && currVertex.getId() == endVertex.getId()) {
-        ergebnisReihenfolge.append(" Distanz " + startVertex.getId() + "\u2192" + currVertex.getId() + ": "
-            + currVertex.getDist() + " über Knoten " + pathfinder(endVertex) + "\n");
+      if (endVertex != null && currVertex.getId() == endVertex.getId()) {
         break;
       }
 
+      // iteriere durch alle Kanten des aktuellen Knotens...
+      cursor.reset(currVertex.getId());
+      while (cursor.next()) {
+        Vertex neighbor = graph.getVertex(cursor.getTarget());
+        if (MetricsRegistry.ENABLED) {
+          metrics.relaxed(1);
+        }
+        // ...deren Nachbarknoten noch nicht abgearbeitet sind
+        if (queue.contains(neighbor)) {
+          // relaxiere die Kante zwischen den beiden Knoten
+          relax(currVertex, neighbor, cursor.getWeight());
+        }
+      }
     }
+    return settledCount;
+  }
 
-    // TODO funktioniert der Algorithmus richtig?
-
-    // letzen "-->" abscheiden und den String zurück geben
-    if (ergebnisReihenfolge.length() >= 2) {
-      returnValue.append(ergebnisReihenfolge.substring(0, ergebnisReihenfolge.length() - 1));
-    } else {
-      returnValue.append("Keine Verbindung gefunden");
+  /**
+   * Überträgt Distanzen und Vorgänger der abgearbeiteten Knoten in ein
+   * Ergebnis; alle anderen Knoten bleiben unerreichbar
+   */
+  private ShortestPathResult createResult(int[] settled, int settledCount) {
+    int[] dist = new int[settled.length];
+    int[] predIds = new int[settled.length];
+    Arrays.fill(dist, ShortestPathEngine.UNREACHABLE);
+    Arrays.fill(predIds, -1);
+    for (int i = 0; i < settledCount; i++) {
+      int v = settled[i];
+      if (activeMode != QueueMode.PRIORITY_QUEUE) {
+        dist[v] = ws.getDist(v);
+        predIds[v] = ws.getPred(v);
+      } else {
+        dist[v] = graph.getVertex(v).getDist();
+        predIds[v] = pred[v] != null ? pred[v].getId() : -1;
+      }
     }
-    return returnValue.append("\n").toString();
+    return new ShortestPathResult(startId, endId, dist, predIds, settled, settledCount);
   }
 
   /**
@@ -135,22 +529,45 @@ public class Dijkstra {
    * @return false wenn der graph negative Kantengewichte hat, true wenn nicht
    */
   private boolean init() {
-    for (Object i : graph.getEdgeMap().values()) {
-      Integer integer = (Integer) i;
+    int maxWeight = maxWeight();
+    if (maxWeight < 0) {
+      return false;
+    }
 
-      // wenn es nagative Werte gibt, gib eine Warnung aus
-      if (Math.abs(integer) != integer) {
-        JOptionPane.showMessageDialog(null,
-            "Dijkstra kann auf diesen Graph nicht angewendet werden. Der Graph enthält negative Kantengewichte.",
-            "Fehler", JOptionPane.ERROR_MESSAGE);
-        return false;
+    activeMode = mode;
+    if (mode == QueueMode.AUTO) {
+      activeMode = maxWeight <= DIAL_MAX_WEIGHT ? QueueMode.DIAL : QueueMode.INDEXED_HEAP;
+    }
+
+    if (activeMode != QueueMode.PRIORITY_QUEUE) {
+      // indiziert über die Knoten-Id; wächst mit dem Graphen
+      int capacity = indexedGraph != null ? indexedGraph.getNumberVertices() : graph.getIdLimit();
+      if (ws == null || ws.getCapacity() < capacity) {
+        ws = new SearchWorkspace(capacity);
+        // Bucket-Queue und Radix-Heap haben die alte Größe
+        heap = null;
       }
+      // O(1): Distanzen, Vorgänger und Heap werden über den Generationszähler
+      // des Workspaces ungültig
+      ws.reset();
+      heap = createQueue(activeMode, maxWeight);
+
+      // nur der Startknoten kommt in den Heap, alle anderen erst bei ihrer
+      // ersten Verbesserung
+      ws.set(startId, 0, -1);
+      heap.insert(startId, 0);
+      return true;
     }
 
+    // nach einer Suche mit Ziel liegen noch Knoten in der Queue
+    queue.clear();
+    if (pred.length < graph.getIdLimit()) {
+      pred = new Vertex[graph.getIdLimit()];
+    }
     startVertex.setDist(0);
     queue.add(startVertex);
 
-    for (Vertex v : graph.getVertices()) {
+    for (Vertex v : graph.vertices()) {
       if (v.getId() != startVertex.getId()) {
 
         v.setDist(Integer.MAX_VALUE);
@@ -164,6 +581,45 @@ public class Dijkstra {
     return true;
   }
 
+  /**
+   * Liest die beim Laden bzw. Aufbau des Graphen bestimmten Gewichte; ein
+   * {@link Graph} führt sie bei addEdge mit und bestimmt sie nur nach anderen
+   * Änderungen neu
+   * 
+   * @return das größte Kantengewicht (0 ohne Kanten) oder -1, wenn der Graph
+   *         mindestens ein negatives Kantengewicht hat
+   */
+  private int maxWeight() {
+    if (indexedGraph != null) {
+      return indexedGraph.getMinWeight() < 0 ? -1 : indexedGraph.getMaxWeight();
+    }
+    return graph.getMinWeight() < 0 ? -1 : graph.getMaxWeight();
+  }
+
+  /**
+   * Liefert eine leere Warteschlange für den Modus; der Heap des Workspaces
+   * und eine passende vorhandene Warteschlange werden wiederverwendet
+   */
+  private IntPriorityQueue createQueue(QueueMode queueMode, int maxWeight) {
+    int numVertices = ws.getCapacity();
+    switch (queueMode) {
+    case DIAL:
+      if (heap instanceof DialQueue && ((DialQueue) heap).getMaxWeight() >= maxWeight) {
+        heap.clear();
+        return heap;
+      }
+      return new DialQueue(numVertices, maxWeight);
+    case RADIX_HEAP:
+      if (heap instanceof RadixHeap) {
+        heap.clear();
+        return heap;
+      }
+      return new RadixHeap(numVertices);
+    default:
+      return ws.getHeap();
+    }
+  }
+
   /**
    * Prüft ob eine Verbesserung der Entfernung zum Nachbarknoten
    * <code>neighbor</code> möglich ist
@@ -173,59 +629,89 @@ public class Dijkstra {
    * @param neighbor
    *          der Nachbarknoten von <code>currVertex</code> den wir prüfen
    *          möchten
-   * @return ein String der in der Ausgabe erscheinen soll
+   * @param weight
+   *          Kantengewicht der Kante zwischen dem aktuellen Knoten und seinem
+   *          Nachbarn
    */
-  private String relax(Vertex currVertex, Vertex neighbor) {
-    StringBuilder returnValue = new StringBuilder("");
-
-    // Kantengewicht der Kante zwischen dem aktuellen Knoten und seinem Nachbarn
-    Object o = graph.getEdgeMap().get(currVertex.getId(), neighbor.getId());
-    if (o == null) {
-      o = graph.getEdgeMap().get(neighbor.getId(), currVertex.getId());
-    }
-    int weight = (int) o;
-
+  private void relax(Vertex currVertex, Vertex neighbor, int weight) {
     // gesamte alternative Distanz zum Nachbarknoten
     int alternativeDist = currVertex.getDist() + weight;
 
     // wenn alternative Distanz kürzer als die aktuelle ist (Verbesserung)
     if (alternativeDist < neighbor.getDist()) {
-
-      // textarea-Ausgabe
-      String oldDistance = "" + neighbor.getDist();
-      if (neighbor.getDist() == Integer.MAX_VALUE) {
-        oldDistance = "\u221E";
+      if (activeListener != null) {
+        activeListener.edgeImproved(currVertex.getId(), neighbor.getId(), neighbor.getDist(), alternativeDist);
       }
-      returnValue.append("Kante zwischen " + currVertex.getId() + " und " + neighbor.getId() + " wurde verbessert ("
-          + oldDistance + " \u21D2 " + alternativeDist + ")");
 
-      // neue Distanz setzen
+      // neue Distanz setzen; die PriorityQueue kennt kein decrease-key und
+      // sortiert einen Knoten nur beim Einfuegen ein, deshalb wird er dafuer
+      // herausgenommen
+      queue.remove(neighbor);
       neighbor.setDist(alternativeDist);
+      queue.add(neighbor);
       // neuen Vorgänger setzen
       pred[neighbor.getId()] = currVertex;
+      if (MetricsRegistry.ENABLED) {
+        metrics.improved(queue.size());
+      }
     }
-
-    return returnValue.toString();
   }
 
-  private String pathfinder(Vertex v) {
-
-    StringBuilder path = new StringBuilder("" + v.getId());
+  /**
+   * Relaxierung für QueueMode.INDEXED_HEAP; Distanzen und Vorgänger liegen in
+   * dem Workspace statt in den Knoten
+   * 
+   * @param currId
+   *          Id des aktuellen Knotens
+   * @param neighborId
+   *          Id des Nachbarknotens
+   * @param weight
+   *          Gewicht der Kante zwischen den beiden Knoten
+   */
+  private void relax(int currId, int neighborId, int weight) {
+    int alternativeDist = ws.getDist(currId) + weight;
+    int oldDist = ws.getDist(neighborId);
+    if (alternativeDist >= oldDist) {
+      return;
+    }
 
-    while (v.getId() != startVertex.getId()) {
-      v = findPred(v);
-      if (v != null) {
-        path.append("\u21D0" + v.getId());
-      } else {
-        return path.toString();
-      }
+    ws.set(neighborId, alternativeDist, currId);
+    heap.insertOrDecrease(neighborId, alternativeDist);
+    if (MetricsRegistry.ENABLED) {
+      metrics.improved(heap.size());
+    }
+    if (activeListener != null) {
+      activeListener.edgeImproved(currId, neighborId, oldDist, alternativeDist);
+    }
+  }
 
+  /**
+   * @return der Weg vom Start zu v rückwärts, z.B. "5⇐3⇐0"
+   */
+  private static String pathString(ShortestPathResult result, int v) {
+    int[] path = result.path(v);
+    StringBuilder weg = new StringBuilder("" + v);
+    for (int i = path.length - 2; i >= 0; i--) {
+      weg.append("\u21D0" + path[i]);
     }
-    return path.toString();
+    return weg.toString();
   }
 
-  private Vertex findPred(Vertex v) {
-    Vertex vorgaenger = pred[v.getId()];
-    return vorgaenger;
+  /**
+   * Schreibt jede Verbesserung als Zeile für die Benutzerausgabe mit
+   */
+  private static class TextTrace implements SearchListener {
+    private final StringBuilder text = new StringBuilder();
+
+    @Override
+    public void vertexSettled(int v, int dist) {
+    }
+
+    @Override
+    public void edgeImproved(int from, int to, int oldDist, int newDist) {
+      String oldDistance = oldDist == Integer.MAX_VALUE ? "\u221E" : "" + oldDist;
+      text.append("Kante zwischen " + from + " und " + to + " wurde verbessert (" + oldDistance + " \u21D2 "
+          + newDist + ")\n");
+    }
   }
 }
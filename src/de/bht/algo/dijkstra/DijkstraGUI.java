@@ -14,6 +14,7 @@ import java.io.File;
 import javax.swing.BoxLayout;
 import javax.swing.ButtonGroup;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
@@ -28,6 +29,8 @@ import javax.swing.border.TitledBorder;
 import javax.swing.event.CaretEvent;
 import javax.swing.event.CaretListener;
 
+import de.bht.algo.metrics.MetricsRegistry;
+
 /**
  * Diese Klasse erstellt eine GUI.
  * 
@@ -53,8 +56,14 @@ public class DijkstraGUI extends JFrame {
   private final JLabel lblStartknoten;
   private final JPanel startEndPanel;
   private Graph<Vertex, Edge<Vertex>> graph;
+  // woraus graph gelesen wurde, damit die Datei nur bei Aenderungen neu
+  // gelesen wird
+  private String graphFile;
+  private boolean graphDirected;
+  private long graphModified;
   private final JLabel lblZielknoten;
   private final JComboBox<String> zielComboBox;
+  private final JCheckBox chckbxBidirektional;
 
   /**
    * Erstellt die GUI
@@ -128,6 +137,11 @@ public class DijkstraGUI extends JFrame {
     richtungsAuswahlGroup.add(rdbtnUngerichtet);
     richtungsAuswahlPanel.add(rdbtnUngerichtet);
 
+    // nur bei einem konkreten Zielknoten moeglich
+    chckbxBidirektional = new JCheckBox("bidirektional", false);
+    chckbxBidirektional.setEnabled(false);
+    richtungsAuswahlPanel.add(chckbxBidirektional);
+
     startClosePanel = new JPanel();
     panel.add(startClosePanel);
 
@@ -165,9 +179,7 @@ public class DijkstraGUI extends JFrame {
         startComboBox.removeAllItems();
         zielComboBox.removeAllItems();
 
-        if (textField.getText().trim().length() > 0) {
-          graph = GraphLesen.FileToWeightedGraph(textField.getText(), rdbtnGerichtet.isSelected());
-
+        if (textField.getText().trim().length() > 0 && loadGraph(textField.getText())) {
           zielComboBox.addItem("alle");
           for (Vertex v : graph.getVertices()) {
             startComboBox.addItem(v.toString());
@@ -178,6 +190,16 @@ public class DijkstraGUI extends JFrame {
       }
     });
 
+    // wird aufgerufen, wenn ein anderer Zielknoten gewaehlt wird
+    // die bidirektionale Suche ist nur bei einem konkreten Ziel moeglich
+    zielComboBox.addActionListener(new ActionListener() {
+      @Override
+      public void actionPerformed(ActionEvent e) {
+        Object ziel = zielComboBox.getSelectedItem();
+        chckbxBidirektional.setEnabled(ziel != null && !ziel.equals("alle"));
+      }
+    });
+
     // wird aufgerufen, der Start-Button geklickt wird
     // der Graph wird dann erzeugt und der Weg gesucht
     btnStartGraph.addActionListener(new ActionListener() {
@@ -206,9 +228,7 @@ public class DijkstraGUI extends JFrame {
 
     String fileName = textField.getText();
 
-    if (textField.getText().trim().length() > 0) {
-      graph = GraphLesen.FileToWeightedGraph(fileName, rdbtnGerichtet.isSelected());
-    } else {
+    if (textField.getText().trim().length() == 0 || !loadGraph(fileName)) {
       return;
     }
 
@@ -219,6 +239,7 @@ public class DijkstraGUI extends JFrame {
     int startpoint = Integer.parseInt((String) startComboBox.getSelectedItem());
 
     Dijkstra dijkstra = new Dijkstra(graph, startpoint);
+    dijkstra.setBidirectional(chckbxBidirektional.isEnabled() && chckbxBidirektional.isSelected());
     String dijkstraReturn = dijkstra.startDijkstra((String) zielComboBox.getSelectedItem());
 
     textArea.append(dijkstraReturn + "\n");
@@ -226,6 +247,33 @@ public class DijkstraGUI extends JFrame {
 
   }
 
+  /**
+   * Liest den Graph aus der Datei, sofern sich Dateiname, Richtung oder die
+   * Datei selbst seit dem letzten Lesen geaendert haben
+   * 
+   * @return false, wenn die Datei nicht existiert oder nicht gelesen werden
+   *         konnte
+   */
+  private boolean loadGraph(String fileName) {
+    File file = new File(fileName);
+    if (!file.isFile()) {
+      return false;
+    }
+    boolean directed = rdbtnGerichtet.isSelected();
+    long modified = file.lastModified();
+    if (graph == null || !fileName.equals(graphFile) || directed != graphDirected || modified != graphModified) {
+      long start = System.nanoTime();
+      graph = GraphLesen.FileToWeightedGraph(fileName, directed, false);
+      if (MetricsRegistry.ENABLED && graph != null) {
+        MetricsRegistry.getDefault().recordLoad(System.nanoTime() - start);
+      }
+      graphFile = fileName;
+      graphDirected = directed;
+      graphModified = modified;
+    }
+    return graph != null;
+  }
+
   /**
    * Schliesst das Fenster und beendet das Programm
    */
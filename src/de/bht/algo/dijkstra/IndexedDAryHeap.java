@@ -0,0 +1,259 @@
+package de.bht.algo.dijkstra;
+
+import java.util.Arrays;
+
+/**
+ * Ein indizierter d-naerer Min-Heap auf primitiven int-Werten. Jeder Eintrag
+ * ist ein Knoten-Slot (0 .. capacity-1) mit einem int-Schluessel (der
+ * vorlaeufigen Distanz). Ueber das Positions-Array kann der Schluessel eines
+ * Slots in O(log n) verringert werden (decrease-key), und ob ein Slot bereits
+ * abgearbeitet ist, laesst sich in O(1) pruefen.
+ * <p>
+ * Die Positionen tragen einen Generationsstempel, so dass {@link #clear()}
+ * auch nach einer Suche mit vielen abgearbeiteten Slots nur O(1) kostet.
+ */
+public class IndexedDAryHeap implements IntPriorityQueue {
+
+  /** Standard-Verzweigungsgrad; 4 passt gut in eine Cache-Line */
+  public static final int DEFAULT_ARITY = 4;
+
+  // Markierungen im Positions-Array
+  private static final int ABSENT = -1;
+  private static final int SETTLED = -2;
+
+  private final int arity;
+
+  // Heap-Position -> Slot bzw. Schluessel (parallel, fuer Cache-Lokalitaet)
+  private final int[] heapSlots;
+  private final int[] heapKeys;
+
+  // Slot -> Heap-Position oder SETTLED; nur gueltig, wenn stamp[slot] ==
+  // generation, sonst ABSENT
+  private final int[] pos;
+  private final int[] stamp;
+  private int generation;
+
+  private int size;
+
+  /**
+   * Erzeugt einen leeren 4-naeren Heap
+   *
+   * @param capacity
+   *          Anzahl der moeglichen Slots (in der Regel die Knotenanzahl)
+   */
+  public IndexedDAryHeap(int capacity) {
+    this(capacity, DEFAULT_ARITY);
+  }
+
+  /**
+   * Erzeugt einen leeren d-naeren Heap
+   *
+   * @param capacity
+   *          Anzahl der moeglichen Slots (in der Regel die Knotenanzahl)
+   * @param arity
+   *          der Verzweigungsgrad d (mindestens 2)
+   */
+  public IndexedDAryHeap(int capacity, int arity) {
+    if (arity < 2) {
+      throw new IllegalArgumentException("Verzweigungsgrad muss mindestens 2 sein");
+    }
+    this.arity = arity;
+    heapSlots = new int[capacity];
+    heapKeys = new int[capacity];
+    pos = new int[capacity];
+    stamp = new int[capacity];
+    generation = 1;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return true, wenn der Slot gerade im Heap liegt
+   */
+  @Override
+  public boolean contains(int slot) {
+    return position(slot) >= 0;
+  }
+
+  /**
+   * @return true, wenn der Slot bereits mit {@link #poll()} entnommen wurde
+   */
+  @Override
+  public boolean isSettled(int slot) {
+    return position(slot) == SETTLED;
+  }
+
+  /**
+   * @return der aktuelle Schluessel eines Slots im Heap
+   */
+  public int getKey(int slot) {
+    return heapKeys[pos[slot]];
+  }
+
+  /**
+   * @return der Slot mit dem kleinsten Schluessel (ohne ihn zu entnehmen)
+   */
+  public int peek() {
+    return heapSlots[0];
+  }
+
+  /**
+   * @return der kleinste Schluessel im Heap
+   */
+  public int peekKey() {
+    return heapKeys[0];
+  }
+
+  /**
+   * Fuegt einen Slot ein, der nicht im Heap liegt; ein bereits abgearbeiteter
+   * Slot ist danach wieder offen
+   */
+  @Override
+  public void insert(int slot, int key) {
+    int i = size++;
+    heapSlots[i] = slot;
+    heapKeys[i] = key;
+    stamp[slot] = generation;
+    pos[slot] = i;
+    siftUp(i);
+  }
+
+  /**
+   * Verringert den Schluessel eines Slots, der im Heap liegt
+   */
+  public void decreaseKey(int slot, int key) {
+    int i = pos[slot];
+    heapKeys[i] = key;
+    siftUp(i);
+  }
+
+  /**
+   * Aendert den Schluessel eines Slots, der im Heap liegt, in beide Richtungen
+   */
+  public void changeKey(int slot, int key) {
+    int i = pos[slot];
+    int old = heapKeys[i];
+    heapKeys[i] = key;
+    if (key < old) {
+      siftUp(i);
+    } else {
+      siftDown(i);
+    }
+  }
+
+  /**
+   * Fuegt den Slot ein oder verringert seinen Schluessel, falls er schon im
+   * Heap liegt und der neue Schluessel kleiner ist. Abgearbeitete Slots werden
+   * ignoriert.
+   *
+   * @return true, wenn der Heap veraendert wurde
+   */
+  @Override
+  public boolean insertOrDecrease(int slot, int key) {
+    int i = position(slot);
+    if (i == ABSENT) {
+      insert(slot, key);
+      return true;
+    }
+    if (i >= 0 && key < heapKeys[i]) {
+      heapKeys[i] = key;
+      siftUp(i);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Entnimmt den Slot mit dem kleinsten Schluessel und markiert ihn als
+   * abgearbeitet
+   *
+   * @return der entnommene Slot
+   */
+  @Override
+  public int poll() {
+    int min = heapSlots[0];
+    pos[min] = SETTLED;
+    int last = --size;
+    if (last > 0) {
+      heapSlots[0] = heapSlots[last];
+      heapKeys[0] = heapKeys[last];
+      pos[heapSlots[0]] = 0;
+      siftDown(0);
+    }
+    return min;
+  }
+
+  /**
+   * Leert den Heap und setzt alle Markierungen zurueck (O(1))
+   */
+  @Override
+  public void clear() {
+    size = 0;
+    if (++generation == 0) {
+      // Ueberlauf des Generationszaehlers: einmalig alle Stempel loeschen
+      Arrays.fill(stamp, 0);
+      generation = 1;
+    }
+  }
+
+  private int position(int slot) {
+    return stamp[slot] == generation ? pos[slot] : ABSENT;
+  }
+
+  private void siftUp(int i) {
+    int slot = heapSlots[i];
+    int key = heapKeys[i];
+    while (i > 0) {
+      int parent = (i - 1) / arity;
+      if (heapKeys[parent] <= key) {
+        break;
+      }
+      heapSlots[i] = heapSlots[parent];
+      heapKeys[i] = heapKeys[parent];
+      pos[heapSlots[i]] = i;
+      i = parent;
+    }
+    heapSlots[i] = slot;
+    heapKeys[i] = key;
+    pos[slot] = i;
+  }
+
+  private void siftDown(int i) {
+    int slot = heapSlots[i];
+    int key = heapKeys[i];
+    while (true) {
+      int first = i * arity + 1;
+      if (first >= size) {
+        break;
+      }
+      // kleinstes Kind suchen
+      int end = Math.min(first + arity, size);
+      int child = first;
+      int childKey = heapKeys[first];
+      for (int c = first + 1; c < end; c++) {
+        if (heapKeys[c] < childKey) {
+          child = c;
+          childKey = heapKeys[c];
+        }
+      }
+      if (key <= childKey) {
+        break;
+      }
+      heapSlots[i] = heapSlots[child];
+      heapKeys[i] = childKey;
+      pos[heapSlots[i]] = i;
+      i = child;
+    }
+    heapSlots[i] = slot;
+    heapKeys[i] = key;
+    pos[slot] = i;
+  }
+}
@@ -0,0 +1,59 @@
+package de.bht.algo.dijkstra;
+
+/**
+ * Eine Prioritaetswarteschlange fuer Dijkstra auf Knoten-Slots (0 ..
+ * capacity-1) mit int-Schluesseln. Jeder Slot liegt hoechstens einmal in der
+ * Warteschlange; einmal entnommene Slots gelten als abgearbeitet, bis
+ * {@link #clear()} aufgerufen wird.
+ * <p>
+ * Die Implementierungen unterscheiden sich darin, welche Schluessel sie
+ * zulassen: {@link IndexedDAryHeap} beliebige, {@link RadixHeap} und
+ * {@link DialQueue} nur monotone (kein neuer Schluessel kleiner als der zuletzt
+ * entnommene), wie sie bei Dijkstra mit nicht-negativen Gewichten entstehen.
+ */
+public interface IntPriorityQueue {
+
+  boolean isEmpty();
+
+  /**
+   * @return Anzahl der Slots in der Warteschlange
+   */
+  int size();
+
+  /**
+   * @return true, wenn der Slot gerade in der Warteschlange liegt
+   */
+  boolean contains(int slot);
+
+  /**
+   * @return true, wenn der Slot bereits mit {@link #poll()} entnommen wurde
+   */
+  boolean isSettled(int slot);
+
+  /**
+   * Fuegt einen Slot ein, der nicht in der Warteschlange liegt
+   */
+  void insert(int slot, int key);
+
+  /**
+   * Fuegt den Slot ein oder verringert seinen Schluessel, falls er schon in der
+   * Warteschlange liegt und der neue Schluessel kleiner ist. Abgearbeitete
+   * Slots werden ignoriert.
+   *
+   * @return true, wenn die Warteschlange veraendert wurde
+   */
+  boolean insertOrDecrease(int slot, int key);
+
+  /**
+   * Entnimmt den Slot mit dem kleinsten Schluessel und markiert ihn als
+   * abgearbeitet
+   *
+   * @return der entnommene Slot
+   */
+  int poll();
+
+  /**
+   * Leert die Warteschlange und setzt alle Markierungen zurueck
+   */
+  void clear();
+}
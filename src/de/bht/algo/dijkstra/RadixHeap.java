@@ -0,0 +1,195 @@
+package de.bht.algo.dijkstra;
+
+import java.util.Arrays;
+
+/**
+ * Ein Radix-Heap fuer monotone int-Schluessel (Ahuja/Mehlhorn/Orlin/Tarjan).
+ * Eimer 0 enthaelt die Eintraege mit dem zuletzt entnommenen Schluessel
+ * last, Eimer i &gt; 0 die Eintraege, deren hoechstes von last abweichendes
+ * Bit das Bit i-1 ist. Ist Eimer 0 leer, wird das Minimum des kleinsten nicht
+ * leeren Eimers zum neuen last, und dessen Eintraege verteilen sich auf
+ * kleinere Eimer. Jeder Eintrag wandert so hoechstens 32-mal, unabhaengig vom
+ * groessten Kantengewicht.
+ * <p>
+ * decrease-key legt einen neuen Eintrag an; der alte bleibt liegen und wird
+ * beim Entnehmen erkannt, weil sein Schluessel nicht mehr zum Slot passt.
+ */
+public class RadixHeap implements IntPriorityQueue {
+
+  private static final int BUCKETS = 33;
+
+  // Markierungen im Zustands-Array
+  private static final int ABSENT = -1;
+  private static final int SETTLED = -2;
+  private static final int QUEUED = 0;
+
+  // Eintraege je Eimer: Schluessel und Slot
+  private final int[][] bucketKeys = new int[BUCKETS][];
+  private final int[][] bucketSlots = new int[BUCKETS][];
+  private final int[] bucketSize = new int[BUCKETS];
+
+  // Slot -> aktueller Schluessel und Zustand, gueltig wenn stamp[slot] ==
+  // generation
+  private final int[] keys;
+  private final int[] state;
+  private final int[] stamp;
+  private int generation;
+
+  private int size;
+  private int last;
+
+  /**
+   * @param capacity
+   *          Anzahl der moeglichen Slots (in der Regel die Knotenanzahl)
+   */
+  public RadixHeap(int capacity) {
+    for (int i = 0; i < BUCKETS; i++) {
+      bucketKeys[i] = new int[16];
+      bucketSlots[i] = new int[16];
+    }
+    keys = new int[capacity];
+    state = new int[capacity];
+    stamp = new int[capacity];
+    generation = 1;
+  }
+
+  /**
+   * @return Anzahl der Slots in der Warteschlange (ohne veraltete Eintraege)
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public boolean contains(int slot) {
+    return state(slot) == QUEUED;
+  }
+
+  @Override
+  public boolean isSettled(int slot) {
+    return state(slot) == SETTLED;
+  }
+
+  /**
+   * Fuegt einen Slot ein, der nicht in der Warteschlange liegt
+   *
+   * @throws IllegalArgumentException
+   *           wenn der Schluessel kleiner als der zuletzt entnommene ist
+   */
+  @Override
+  public void insert(int slot, int key) {
+    if (key < last) {
+      throw new IllegalArgumentException("Schluessel " + key + " ist kleiner als der zuletzt entnommene " + last);
+    }
+    stamp[slot] = generation;
+    state[slot] = QUEUED;
+    keys[slot] = key;
+    push(bucket(key), key, slot);
+    size++;
+  }
+
+  @Override
+  public boolean insertOrDecrease(int slot, int key) {
+    int s = state(slot);
+    if (s == ABSENT) {
+      insert(slot, key);
+      return true;
+    }
+    if (s == QUEUED && key < keys[slot]) {
+      if (key < last) {
+        throw new IllegalArgumentException("Schluessel " + key + " ist kleiner als der zuletzt entnommene " + last);
+      }
+      keys[slot] = key;
+      push(bucket(key), key, slot);
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public int poll() {
+    while (true) {
+      while (bucketSize[0] > 0) {
+        int i = --bucketSize[0];
+        int slot = bucketSlots[0][i];
+        if (isCurrent(slot, bucketKeys[0][i])) {
+          state[slot] = SETTLED;
+          size--;
+          return slot;
+        }
+      }
+      refill();
+    }
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(bucketSize, 0);
+    size = 0;
+    last = 0;
+    if (++generation == 0) {
+      // Ueberlauf des Generationszaehlers: einmalig alle Stempel loeschen
+      Arrays.fill(stamp, 0);
+      generation = 1;
+    }
+  }
+
+  /**
+   * Macht das Minimum des kleinsten nicht leeren Eimers zu last und verteilt
+   * dessen Eintraege neu; veraltete Eintraege fallen dabei weg
+   */
+  private void refill() {
+    int b = 1;
+    while (bucketSize[b] == 0) {
+      b++;
+    }
+    int[] k = bucketKeys[b];
+    int[] s = bucketSlots[b];
+    int count = bucketSize[b];
+    bucketSize[b] = 0;
+    int min = Integer.MAX_VALUE;
+    for (int i = 0; i < count; i++) {
+      if (isCurrent(s[i], k[i]) && k[i] < min) {
+        min = k[i];
+      }
+    }
+    if (min == Integer.MAX_VALUE) {
+      // nur veraltete Eintraege
+      return;
+    }
+    last = min;
+    for (int i = 0; i < count; i++) {
+      if (isCurrent(s[i], k[i])) {
+        push(bucket(k[i]), k[i], s[i]);
+      }
+    }
+  }
+
+  private boolean isCurrent(int slot, int key) {
+    return stamp[slot] == generation && state[slot] == QUEUED && keys[slot] == key;
+  }
+
+  private int bucket(int key) {
+    return key == last ? 0 : 32 - Integer.numberOfLeadingZeros(key ^ last);
+  }
+
+  private void push(int b, int key, int slot) {
+    int i = bucketSize[b]++;
+    if (i == bucketKeys[b].length) {
+      bucketKeys[b] = Arrays.copyOf(bucketKeys[b], 2 * i);
+      bucketSlots[b] = Arrays.copyOf(bucketSlots[b], 2 * i);
+    }
+    bucketKeys[b][i] = key;
+    bucketSlots[b][i] = slot;
+  }
+
+  private int state(int slot) {
+    return stamp[slot] == generation ? state[slot] : ABSENT;
+  }
+}
@@ -0,0 +1,35 @@
+package de.bht.algo.dijkstra;
+
+/**
+ * Beobachtet die einzelnen Schritte einer Suche, z.B. fuer die
+ * Schritt-fuer-Schritt-Ausgabe der GUI. Ohne Listener ({@code null}) kostet
+ * die Suche dafuer nur eine Pruefung je Schritt.
+ */
+public interface SearchListener {
+
+  /**
+   * Ein Knoten wurde aus der Warteschlange genommen; seine Distanz ist
+   * endgueltig
+   *
+   * @param v
+   *          der Knoten
+   * @param dist
+   *          seine Distanz vom Start
+   */
+  void vertexSettled(int v, int dist);
+
+  /**
+   * Die Distanz eines Knotens wurde ueber eine Kante verbessert
+   *
+   * @param from
+   *          der abgearbeitete Knoten, von dem die Kante ausgeht
+   * @param to
+   *          der verbesserte Knoten
+   * @param oldDist
+   *          die bisherige Distanz ({@link ShortestPathEngine#UNREACHABLE},
+   *          wenn to noch nicht erreicht war)
+   * @param newDist
+   *          die neue Distanz
+   */
+  void edgeImproved(int from, int to, int oldDist, int newDist);
+}
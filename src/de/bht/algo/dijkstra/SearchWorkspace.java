@@ -0,0 +1,157 @@
+package de.bht.algo.dijkstra;
+
+import java.util.Arrays;
+
+import de.bht.algo.metrics.MetricsRegistry;
+import de.bht.algo.metrics.QueryMetrics;
+
+/**
+ * Der veraenderliche Zustand einer einzelnen Suche (Distanzen, Vorgaenger und
+ * Heap). Ein Workspace gehoert waehrend einer Anfrage genau einem Thread und
+ * wird danach fuer die naechste Anfrage wiederverwendet, so dass der Graph
+ * selbst nur gelesen wird.
+ * <p>
+ * Jeder Eintrag traegt die Generation, in der er zuletzt geschrieben wurde.
+ * {@link #reset()} erhoeht nur die Generation; Eintraege aus frueheren
+ * Generationen gelten als unendlich bzw. ohne Vorgaenger. Eine Anfrage kostet
+ * dadurch nur so viel, wie sie Knoten beruehrt, unabhaengig von der Groesse
+ * des Graphen.
+ * <p>
+ * Ist {@link MetricsRegistry#ENABLED} gesetzt, misst der Workspace auch die
+ * laufende Anfrage: {@link #reset()} beginnt sie, {@link #finishQuery()}
+ * traegt sie in die Registry ein.
+ */
+public class SearchWorkspace {
+  private final int[] dist;
+  private final int[] pred;
+  private final int[] stamp;
+  // Markierung der Zielknoten einer Anfrage, ebenfalls mit Generationsstempel
+  private final int[] targetStamp;
+  private int generation;
+  private final IndexedDAryHeap heap;
+  private final QueryMetrics metrics;
+
+  /**
+   * @param numVertices
+   *          Anzahl der Knoten des Graphen
+   */
+  public SearchWorkspace(int numVertices) {
+    dist = new int[numVertices];
+    pred = new int[numVertices];
+    stamp = new int[numVertices];
+    targetStamp = new int[numVertices];
+    generation = 1;
+    heap = new IndexedDAryHeap(numVertices);
+    metrics = MetricsRegistry.ENABLED ? new QueryMetrics() : null;
+  }
+
+  /**
+   * Setzt in O(1) alle Distanzen auf unendlich, alle Vorgaenger auf -1 und
+   * leert den Heap; eine noch nicht eingetragene Anfrage wird vorher
+   * abgeschlossen
+   */
+  public void reset() {
+    long start = 0;
+    if (MetricsRegistry.ENABLED) {
+      finishQuery();
+      start = System.nanoTime();
+    }
+    if (++generation == 0) {
+      // Ueberlauf nach 2^32 Anfragen: einmalig alle Stempel loeschen
+      Arrays.fill(stamp, 0);
+      Arrays.fill(targetStamp, 0);
+      generation = 1;
+    }
+    heap.clear();
+    if (MetricsRegistry.ENABLED) {
+      metrics.begin(start);
+    }
+  }
+
+  /**
+   * Traegt die laufende Anfrage in die {@link MetricsRegistry} ein, sofern
+   * gemessen wird und seit dem letzten {@link #reset()} gesucht wurde
+   */
+  public void finishQuery() {
+    if (MetricsRegistry.ENABLED && metrics.finish()) {
+      MetricsRegistry.getDefault().record(metrics);
+    }
+  }
+
+  /**
+   * @return die Messwerte der laufenden Anfrage oder null, wenn nicht
+   *         gemessen wird
+   */
+  public QueryMetrics getMetrics() {
+    return metrics;
+  }
+
+  public int getCapacity() {
+    return dist.length;
+  }
+
+  /**
+   * @return true, wenn der Knoten in der aktuellen Anfrage schon eine Distanz
+   *         erhalten hat
+   */
+  public boolean isVisited(int v) {
+    return stamp[v] == generation;
+  }
+
+  public int getDist(int v) {
+    return stamp[v] == generation ? dist[v] : Integer.MAX_VALUE;
+  }
+
+  public int getPred(int v) {
+    return stamp[v] == generation ? pred[v] : -1;
+  }
+
+  /**
+   * Setzt Distanz und Vorgaenger eines Knotens
+   */
+  public void set(int v, int d, int p) {
+    stamp[v] = generation;
+    dist[v] = d;
+    pred[v] = p;
+  }
+
+  /**
+   * Markiert einen Knoten als Ziel der aktuellen Anfrage
+   */
+  public void markTarget(int v) {
+    targetStamp[v] = generation;
+  }
+
+  /**
+   * @return true, wenn der Knoten in der aktuellen Anfrage als Ziel markiert
+   *         ist
+   */
+  public boolean isTarget(int v) {
+    return targetStamp[v] == generation;
+  }
+
+  /**
+   * Folgt den Vorgaengern vom Ziel zurueck zum Start
+   *
+   * @return die Knoten des Weges von source bis target oder null, wenn target
+   *         in dieser Suche nicht erreicht wurde
+   */
+  public int[] pathTo(int source, int target) {
+    if (getDist(target) == Integer.MAX_VALUE) {
+      return null;
+    }
+    int length = 1;
+    for (int v = target; v != source; v = getPred(v)) {
+      length++;
+    }
+    int[] path = new int[length];
+    for (int v = target, i = length - 1; i >= 0; v = getPred(v), i--) {
+      path[i] = v;
+    }
+    return path;
+  }
+
+  public IndexedDAryHeap getHeap() {
+    return heap;
+  }
+}
@@ -0,0 +1,313 @@
+package de.bht.algo.dijkstra;
+
+import graph.CsrGraph;
+import graph.Edge;
+import graph.Graph;
+import graph.Vertex;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.bht.algo.metrics.MetricsRegistry;
+
+/**
+ * Ein Cache fuer wiederholte Anfragen an denselben Graphen: kuerzeste-Wege-
+ * Baeume zu allen Knoten je Startknoten und Punkt-zu-Punkt-Ergebnisse je Paar
+ * (Start, Ziel). Eine Paar-Anfrage wird auch aus einem vorhandenen Baum des
+ * Startknotens beantwortet.
+ * <p>
+ * Der Speicher ist durch die Groesse der int-Arrays der Eintraege begrenzt
+ * (plus eine Pauschale je Eintrag); reicht er nicht, werden die am laengsten
+ * nicht benutzten Eintraege verdraengt. Aendert sich der Graph (siehe
+ * {@link Graph#getVersion()}), verwirft der Cache beim naechsten Zugriff alle
+ * Eintraege.
+ * <p>
+ * Alle Methoden duerfen von mehreren Threads gleichzeitig aufgerufen werden.
+ * Gesucht wird ausserhalb der Sperre; fragen zwei Threads gleichzeitig
+ * dasselbe an, rechnen also beide. Fehlschlaege suchen mit einer eigenen
+ * {@link ShortestPathEngine} des Caches und deren Workspaces; sie haelt eine
+ * eingefrorene Kopie (CSR) des Graphen, die erst nach einer Aenderung des
+ * Graphen neu erzeugt wird, so dass ein Fehlschlag nur die Suche selbst
+ * kostet. Die Kopie belegt zusaetzlich zu den Eintraegen 8 Byte je Kante und 4
+ * je Knoten und wird mit {@link #clear()} freigegeben. Treffer, Fehlschlaege
+ * und Verdraengungen zaehlt die {@link MetricsRegistry}, wenn gemessen wird.
+ */
+public class ShortestPathCache {
+
+  // geschaetzter Platz je Eintrag ausser den Arrays: Map-Eintrag, Schluessel,
+  // Eintrags- und Ergebnisobjekt, Array-Koepfe
+  private static final int ENTRY_OVERHEAD = 128;
+
+  private final Graph<Vertex, Edge<Vertex>> graph;
+  private final long maxBytes;
+  // in Zugriffsreihenfolge: der erste Eintrag ist der am laengsten unbenutzte
+  private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true);
+  private long bytes;
+  // die Version des Graphen, zu der die Eintraege gehoeren
+  private int version;
+  // Engine fuer Fehlschlaege und die Version des Graphen, aus der sie stammt
+  private ShortestPathEngine engine;
+  private int engineVersion;
+
+  /**
+   * @param graph
+   *          der Graph; Aenderungen ueber addVertex, addEdge, removeVertex und
+   *          removeEdge machen den Cache ungueltig
+   * @param maxBytes
+   *          hoechstens so viele Bytes belegen die Eintraege
+   */
+  public ShortestPathCache(Graph<Vertex, Edge<Vertex>> graph, long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Die Groesse darf nicht negativ sein");
+    }
+    this.graph = graph;
+    this.maxBytes = maxBytes;
+    this.version = graph.getVersion();
+  }
+
+  /**
+   * Liefert den kuerzeste-Wege-Baum zu allen Knoten
+   *
+   * @return das Ergebnis; es wird mit anderen Aufrufern geteilt und darf nicht
+   *         veraendert werden
+   * @throws IllegalArgumentException
+   *           wenn der Knoten nicht existiert oder der Graph negative
+   *           Kantengewichte hat
+   */
+  public ShortestPathResult tree(int source) {
+    checkVertex(source);
+    Long key = key(source, -1);
+    Entry entry = get(key);
+    if (entry != null) {
+      return entry.tree;
+    }
+    int searchVersion = graph.getVersion();
+    ShortestPathEngine engine = engine();
+    SearchWorkspace ws = engine.acquire();
+    ShortestPathResult tree;
+    try {
+      int n = engine.getGraph().getNumberVertices();
+      int[] dist = new int[n];
+      int[] pred = new int[n];
+      int[] settled = new int[n];
+      int settledCount = engine.search(ws, source, -1, settled);
+      for (int v = 0; v < n; v++) {
+        dist[v] = ws.getDist(v);
+        pred[v] = ws.getPred(v);
+      }
+      tree = new ShortestPathResult(source, -1, dist, pred, settled, settledCount);
+    } finally {
+      engine.release(ws);
+    }
+    put(key, new Entry(tree), searchVersion);
+    return tree;
+  }
+
+  /**
+   * Bestimmt die Laenge eines kuerzesten Weges
+   *
+   * @return die Distanz oder {@link ShortestPathEngine#UNREACHABLE}
+   * @throws IllegalArgumentException
+   *           wenn ein Knoten nicht existiert oder der Graph negative
+   *           Kantengewichte hat
+   */
+  public int distance(int source, int target) {
+    return pair(source, target).distance;
+  }
+
+  /**
+   * Bestimmt einen kuerzesten Weg
+   *
+   * @return die Knoten des Weges von source bis target (eine Kopie) oder null,
+   *         wenn target nicht erreichbar ist
+   * @throws IllegalArgumentException
+   *           wenn ein Knoten nicht existiert oder der Graph negative
+   *           Kantengewichte hat
+   */
+  public int[] path(int source, int target) {
+    int[] path = pair(source, target).path;
+    return path != null ? path.clone() : null;
+  }
+
+  /**
+   * Verwirft alle Eintraege
+   */
+  public synchronized void clear() {
+    entries.clear();
+    bytes = 0;
+    engine = null;
+  }
+
+  /**
+   * @return Anzahl der Eintraege
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return der von den Eintraegen belegte Platz in Bytes
+   */
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Sucht das Paar, dann den Baum des Startknotens und erst dann im Graphen
+   */
+  private Entry pair(int source, int target) {
+    checkVertex(source);
+    checkVertex(target);
+    Long key = key(source, target);
+    Entry entry;
+    synchronized (this) {
+      entry = lookup(key);
+      if (entry == null) {
+        Entry tree = lookup(key(source, -1));
+        if (tree != null) {
+          entry = new Entry(tree.tree, target);
+        }
+      }
+    }
+    if (MetricsRegistry.ENABLED) {
+      MetricsRegistry.getDefault().recordCacheAccess(entry != null);
+    }
+    if (entry != null) {
+      return entry;
+    }
+    int searchVersion = graph.getVersion();
+    ShortestPathEngine engine = engine();
+    SearchWorkspace ws = engine.acquire();
+    try {
+      engine.search(ws, source, target);
+      entry = new Entry(ws.getDist(target), ws.pathTo(source, target));
+    } finally {
+      engine.release(ws);
+    }
+    put(key, entry, searchVersion);
+    return entry;
+  }
+
+  /**
+   * Liefert die Engine zur aktuellen Version des Graphen; eingefroren wird
+   * ausserhalb der Sperre, damit Treffer anderer Threads nicht warten
+   */
+  private ShortestPathEngine engine() {
+    int current = graph.getVersion();
+    synchronized (this) {
+      if (engine != null && engineVersion == current) {
+        return engine;
+      }
+    }
+    ShortestPathEngine frozen = new ShortestPathEngine(CsrGraph.fromGraph(graph));
+    synchronized (this) {
+      engine = frozen;
+      engineVersion = current;
+    }
+    return frozen;
+  }
+
+  private Entry get(Long key) {
+    Entry entry;
+    synchronized (this) {
+      entry = lookup(key);
+    }
+    if (MetricsRegistry.ENABLED) {
+      MetricsRegistry.getDefault().recordCacheAccess(entry != null);
+    }
+    return entry;
+  }
+
+  /**
+   * Verwirft zuerst alle Eintraege, falls sich der Graph geaendert hat; nur
+   * mit der Sperre aufrufen
+   */
+  private Entry lookup(Long key) {
+    int current = graph.getVersion();
+    if (current != version) {
+      entries.clear();
+      bytes = 0;
+      version = current;
+    }
+    return entries.get(key);
+  }
+
+  /**
+   * Nimmt ein Ergebnis auf und verdraengt, bis es passt. Hat sich der Graph
+   * seit Beginn der Suche geaendert oder ist das Ergebnis allein groesser als
+   * der Cache, wird es nicht aufgenommen.
+   */
+  private synchronized void put(Long key, Entry entry, int searchVersion) {
+    if (searchVersion != graph.getVersion() || entry.bytes > maxBytes) {
+      return;
+    }
+    lookup(key);
+    Entry old = entries.put(key, entry);
+    if (old != null) {
+      bytes -= old.bytes;
+    }
+    bytes += entry.bytes;
+    Iterator<Map.Entry<Long, Entry>> it = entries.entrySet().iterator();
+    while (bytes > maxBytes) {
+      bytes -= it.next().getValue().bytes;
+      it.remove();
+      if (MetricsRegistry.ENABLED) {
+        MetricsRegistry.getDefault().recordCacheEviction();
+      }
+    }
+  }
+
+  /**
+   * @param target
+   *          Zielknoten oder -1 fuer den Baum zu allen Knoten
+   */
+  private static Long key(int source, int target) {
+    return Long.valueOf((long) source << 32 | (target & 0xFFFFFFFFL));
+  }
+
+  private void checkVertex(int v) {
+    if (graph.getVertex(v) == null) {
+      throw new IllegalArgumentException("Knoten " + v + " existiert nicht");
+    }
+  }
+
+  /**
+   * Ein Baum zu allen Knoten oder Distanz und Weg zu einem Ziel
+   */
+  private static class Entry {
+    private final ShortestPathResult tree;
+    private final int distance;
+    private final int[] path;
+    private final long bytes;
+
+    Entry(ShortestPathResult tree) {
+      this.tree = tree;
+      this.distance = 0;
+      this.path = null;
+      this.bytes = ENTRY_OVERHEAD + tree.arrayBytes();
+    }
+
+    /**
+     * Uebernimmt aus einem Suchergebnis nur Distanz und Weg zum Ziel
+     */
+    Entry(ShortestPathResult result, int target) {
+      this(result.getDistance(target), result.isReachable(target) ? result.path(target) : null);
+    }
+
+    /**
+     * @param path
+     *          der Weg oder null, wenn das Ziel nicht erreichbar ist
+     */
+    Entry(int distance, int[] path) {
+      this.tree = null;
+      this.distance = distance;
+      this.path = path;
+      this.bytes = ENTRY_OVERHEAD + (path != null ? 4L * path.length : 0);
+    }
+  }
+}
@@ -0,0 +1,440 @@
+package de.bht.algo.dijkstra;
+
+import graph.CsrGraph;
+import graph.IndexedGraph;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import de.bht.algo.metrics.MetricsRegistry;
+import de.bht.algo.metrics.QueryMetrics;
+
+/**
+ * Ein wiedereintrittsfaehiger Dijkstra fuer viele Anfragen auf demselben
+ * Graphen. Der Graph wird nur gelesen; Distanzen, Vorgaenger und Heap einer
+ * Anfrage liegen in einem {@link SearchWorkspace} aus einem Pool. Dadurch
+ * koennen beliebig viele Threads gleichzeitig Anfragen an dieselbe Instanz
+ * stellen.
+ * <p>
+ * Fuer Punkt-zu-Punkt-Anfragen gibt es zusaetzlich eine bidirektionale Suche,
+ * die gleichzeitig vom Start vorwaerts und vom Ziel rueckwaerts sucht und
+ * dafuer den umgekehrten Graphen benutzt.
+ * <p>
+ * Mit -Dde.bht.algo.metrics=true wird jede Anfrage gemessen und in die
+ * {@link MetricsRegistry} eingetragen.
+ */
+public class ShortestPathEngine {
+
+  /** Distanz fuer nicht erreichbare Knoten */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  private final IndexedGraph graph;
+  private volatile IndexedGraph reverseGraph;
+  private final ConcurrentLinkedQueue<SearchWorkspace> pool = new ConcurrentLinkedQueue<SearchWorkspace>();
+
+  /**
+   * @param graph
+   *          der Graph; darf danach nicht mehr veraendert werden
+   * @throws IllegalArgumentException
+   *           wenn der Graph negative Kantengewichte hat
+   */
+  public ShortestPathEngine(IndexedGraph graph) {
+    if (graph.getMinWeight() < 0) {
+      throw new IllegalArgumentException("Der Graph enthält negative Kantengewichte.");
+    }
+    this.graph = graph;
+  }
+
+  /**
+   * @param graph
+   *          der Graph; darf danach nicht mehr veraendert werden
+   * @param reverseGraph
+   *          der dazu umgekehrte Graph (z.B. aus {@link CsrGraph#transpose})
+   */
+  public ShortestPathEngine(IndexedGraph graph, IndexedGraph reverseGraph) {
+    this(graph);
+    this.reverseGraph = reverseGraph;
+  }
+
+  public IndexedGraph getGraph() {
+    return graph;
+  }
+
+  /**
+   * @return der umgekehrte Graph; wird beim ersten Aufruf erzeugt
+   */
+  public IndexedGraph getReverseGraph() {
+    IndexedGraph r = reverseGraph;
+    if (r == null) {
+      synchronized (this) {
+        r = reverseGraph;
+        if (r == null) {
+          r = CsrGraph.transpose(graph);
+          reverseGraph = r;
+        }
+      }
+    }
+    return r;
+  }
+
+  /**
+   * Bestimmt die Länge eines kürzesten Weges; die Suche bricht ab, sobald das
+   * Ziel abgearbeitet ist
+   *
+   * @return die Distanz oder {@link #UNREACHABLE}
+   */
+  public int distance(int source, int target) {
+    checkVertex(source);
+    checkVertex(target);
+    SearchWorkspace ws = acquire();
+    try {
+      search(ws, source, target);
+      return ws.getDist(target);
+    } finally {
+      release(ws);
+    }
+  }
+
+  /**
+   * Bestimmt einen kürzesten Weg
+   *
+   * @return die Knoten des Weges von source bis target oder null, wenn target
+   *         nicht erreichbar ist
+   */
+  public int[] path(int source, int target) {
+    checkVertex(source);
+    checkVertex(target);
+    SearchWorkspace ws = acquire();
+    try {
+      search(ws, source, target);
+      return ws.pathTo(source, target);
+    } finally {
+      release(ws);
+    }
+  }
+
+  /**
+   * Bestimmt die Länge eines kürzesten Weges mit bidirektionaler Suche
+   *
+   * @return die Distanz oder {@link #UNREACHABLE}
+   */
+  public int bidirectionalDistance(int source, int target) {
+    checkVertex(source);
+    checkVertex(target);
+    SearchWorkspace forward = acquire();
+    SearchWorkspace backward = acquire();
+    try {
+      int meet = searchBidirectional(forward, backward, source, target);
+      if (meet == -1) {
+        return UNREACHABLE;
+      }
+      return forward.getDist(meet) + backward.getDist(meet);
+    } finally {
+      release(forward);
+      release(backward);
+    }
+  }
+
+  /**
+   * Bestimmt einen kürzesten Weg mit bidirektionaler Suche
+   *
+   * @return die Knoten des Weges von source bis target oder null, wenn target
+   *         nicht erreichbar ist
+   */
+  public int[] bidirectionalPath(int source, int target) {
+    checkVertex(source);
+    checkVertex(target);
+    SearchWorkspace forward = acquire();
+    SearchWorkspace backward = acquire();
+    try {
+      int meet = searchBidirectional(forward, backward, source, target);
+      if (meet == -1) {
+        return null;
+      }
+      return bidirectionalPath(forward, backward, meet, source, target);
+    } finally {
+      release(forward);
+      release(backward);
+    }
+  }
+
+  /**
+   * Setzt den Weg aus dem Vorwärtsteil source .. meet und dem Rückwärtsteil
+   * meet .. target zusammen
+   */
+  static int[] bidirectionalPath(SearchWorkspace forward, SearchWorkspace backward, int meet, int source, int target) {
+    int length = 1;
+    for (int v = meet; v != source; v = forward.getPred(v)) {
+      length++;
+    }
+    int meetIndex = length - 1;
+    for (int v = meet; v != target; v = backward.getPred(v)) {
+      length++;
+    }
+    int[] path = new int[length];
+    for (int v = meet, i = meetIndex; i >= 0; v = forward.getPred(v), i--) {
+      path[i] = v;
+    }
+    for (int v = meet, i = meetIndex; i < length; v = backward.getPred(v), i++) {
+      path[i] = v;
+    }
+    return path;
+  }
+
+  /**
+   * Bestimmt die Distanzen von einem Knoten zu allen Knoten
+   *
+   * @return ein neues Array mit den Distanzen ({@link #UNREACHABLE} für nicht
+   *         erreichbare Knoten)
+   */
+  public int[] distances(int source) {
+    int[] dist = new int[graph.getNumberVertices()];
+    distances(source, dist);
+    return dist;
+  }
+
+  /**
+   * Wie {@link #distances(int)}, schreibt die Distanzen aber in ein
+   * vorhandenes Array, z.B. einen Puffer, den ein Thread fuer viele Anfragen
+   * wiederverwendet
+   *
+   * @param dist
+   *          Array mit mindestens so vielen Eintraegen wie Knoten
+   */
+  public void distances(int source, int[] dist) {
+    checkVertex(source);
+    SearchWorkspace ws = acquire();
+    try {
+      search(ws, source, -1);
+      for (int v = 0, n = graph.getNumberVertices(); v < n; v++) {
+        dist[v] = ws.getDist(v);
+      }
+    } finally {
+      release(ws);
+    }
+  }
+
+  /**
+   * Holt einen freien Workspace aus dem Pool oder legt einen neuen an
+   */
+  SearchWorkspace acquire() {
+    SearchWorkspace ws = pool.poll();
+    if (ws == null) {
+      ws = new SearchWorkspace(graph.getNumberVertices());
+    }
+    ws.reset();
+    return ws;
+  }
+
+  /**
+   * Gibt einen Workspace an den Pool zurück und schließt seine Messung ab
+   */
+  void release(SearchWorkspace ws) {
+    ws.finishQuery();
+    pool.offer(ws);
+  }
+
+  /**
+   * Dijkstra mit indiziertem Heap im Workspace
+   *
+   * @param target
+   *          Zielknoten für den vorzeitigen Abbruch oder -1 für alle Knoten
+   */
+  void search(SearchWorkspace ws, int source, int target) {
+    search(ws, source, target, null);
+  }
+
+  /**
+   * Dijkstra mit indiziertem Heap im Workspace, der die abgearbeiteten Knoten
+   * in ihrer Reihenfolge mitschreibt
+   *
+   * @param target
+   *          Zielknoten für den vorzeitigen Abbruch oder -1 für alle Knoten
+   * @param settled
+   *          nimmt die abgearbeiteten Knoten auf (mindestens so groß wie der
+   *          Graph) oder null
+   * @return Anzahl der abgearbeiteten Knoten
+   */
+  int search(SearchWorkspace ws, int source, int target, int[] settled) {
+    int settledCount = 0;
+    IndexedDAryHeap heap = ws.getHeap();
+    QueryMetrics metrics = ws.getMetrics();
+    ws.set(source, 0, -1);
+    heap.insert(source, 0);
+    if (MetricsRegistry.ENABLED) {
+      metrics.inserted(heap.size());
+    }
+
+    while (!heap.isEmpty()) {
+      int curr = heap.poll();
+      if (MetricsRegistry.ENABLED) {
+        metrics.settled();
+      }
+      if (settled != null) {
+        settled[settledCount] = curr;
+      }
+      settledCount++;
+      if (curr == target) {
+        break;
+      }
+      int currDist = ws.getDist(curr);
+      int e = graph.firstEdge(curr);
+      int end = graph.endEdge(curr);
+      if (MetricsRegistry.ENABLED) {
+        metrics.relaxed(end - e);
+      }
+      for (; e < end; e++) {
+        int neighbor = graph.getTarget(e);
+        int alternativeDist = currDist + graph.getWeight(e);
+        if (alternativeDist < ws.getDist(neighbor) && !heap.isSettled(neighbor)) {
+          ws.set(neighbor, alternativeDist, curr);
+          heap.insertOrDecrease(neighbor, alternativeDist);
+          if (MetricsRegistry.ENABLED) {
+            metrics.improved(heap.size());
+          }
+        }
+      }
+    }
+    if (MetricsRegistry.ENABLED) {
+      metrics.endSearch();
+    }
+    return settledCount;
+  }
+
+  /**
+   * Dijkstra, der abbricht, sobald alle Zielknoten abgearbeitet sind
+   *
+   * @param targets
+   *          die Zielknoten (Wiederholungen sind erlaubt)
+   */
+  void searchTargets(SearchWorkspace ws, int source, int[] targets) {
+    int remaining = 0;
+    for (int t : targets) {
+      if (!ws.isTarget(t)) {
+        ws.markTarget(t);
+        remaining++;
+      }
+    }
+    IndexedDAryHeap heap = ws.getHeap();
+    QueryMetrics metrics = ws.getMetrics();
+    ws.set(source, 0, -1);
+    heap.insert(source, 0);
+    if (MetricsRegistry.ENABLED) {
+      metrics.inserted(heap.size());
+    }
+
+    while (!heap.isEmpty() && remaining > 0) {
+      int curr = heap.poll();
+      if (MetricsRegistry.ENABLED) {
+        metrics.settled();
+      }
+      if (ws.isTarget(curr)) {
+        remaining--;
+      }
+      int currDist = ws.getDist(curr);
+      int e = graph.firstEdge(curr);
+      int end = graph.endEdge(curr);
+      if (MetricsRegistry.ENABLED) {
+        metrics.relaxed(end - e);
+      }
+      for (; e < end; e++) {
+        int neighbor = graph.getTarget(e);
+        int alternativeDist = currDist + graph.getWeight(e);
+        if (alternativeDist < ws.getDist(neighbor) && !heap.isSettled(neighbor)) {
+          ws.set(neighbor, alternativeDist, curr);
+          heap.insertOrDecrease(neighbor, alternativeDist);
+          if (MetricsRegistry.ENABLED) {
+            metrics.improved(heap.size());
+          }
+        }
+      }
+    }
+    if (MetricsRegistry.ENABLED) {
+      metrics.endSearch();
+    }
+  }
+
+  /**
+   * Bidirektionaler Dijkstra: expandiert jeweils die Seite mit dem kleineren
+   * Heap-Minimum und bricht ab, sobald die Summe beider Minima die beste
+   * bisher gefundene Verbindung nicht mehr unterbieten kann. Im
+   * Rückwärts-Workspace ist der Vorgänger eines Knotens sein Nachfolger auf
+   * dem Weg zum Ziel. Gemessen wird für beide Richtungen zusammen im
+   * Vorwärts-Workspace.
+   *
+   * @return der Knoten, an dem sich die beiden Suchen auf einem kürzesten Weg
+   *         treffen, oder -1, wenn target nicht erreichbar ist
+   */
+  int searchBidirectional(SearchWorkspace forward, SearchWorkspace backward, int source, int target) {
+    IndexedGraph reverse = getReverseGraph();
+    IndexedDAryHeap forwardHeap = forward.getHeap();
+    IndexedDAryHeap backwardHeap = backward.getHeap();
+    QueryMetrics metrics = forward.getMetrics();
+    forward.set(source, 0, -1);
+    forwardHeap.insert(source, 0);
+    backward.set(target, 0, -1);
+    backwardHeap.insert(target, 0);
+    if (MetricsRegistry.ENABLED) {
+      metrics.inserted(1);
+      metrics.inserted(2);
+    }
+
+    if (source == target) {
+      if (MetricsRegistry.ENABLED) {
+        metrics.endSearch();
+      }
+      return source;
+    }
+    int best = UNREACHABLE;
+    int meet = -1;
+
+    while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+      if ((long) forwardHeap.peekKey() + backwardHeap.peekKey() >= best) {
+        break;
+      }
+      boolean forwardStep = forwardHeap.peekKey() <= backwardHeap.peekKey();
+      IndexedGraph g = forwardStep ? graph : reverse;
+      SearchWorkspace ws = forwardStep ? forward : backward;
+      SearchWorkspace other = forwardStep ? backward : forward;
+      IndexedDAryHeap heap = ws.getHeap();
+
+      int curr = heap.poll();
+      if (MetricsRegistry.ENABLED) {
+        metrics.settled();
+      }
+      int currDist = ws.getDist(curr);
+      int e = g.firstEdge(curr);
+      int end = g.endEdge(curr);
+      if (MetricsRegistry.ENABLED) {
+        metrics.relaxed(end - e);
+      }
+      for (; e < end; e++) {
+        int neighbor = g.getTarget(e);
+        int alternativeDist = currDist + g.getWeight(e);
+        if (alternativeDist < ws.getDist(neighbor) && !heap.isSettled(neighbor)) {
+          ws.set(neighbor, alternativeDist, curr);
+          heap.insertOrDecrease(neighbor, alternativeDist);
+          if (MetricsRegistry.ENABLED) {
+            metrics.improved(forwardHeap.size() + backwardHeap.size());
+          }
+        }
+        // trifft die Kante auf einen Knoten, den die andere Suche schon
+        // erreicht hat, ist das eine Verbindung von source nach target
+        int otherDist = other.getDist(neighbor);
+        if (otherDist != UNREACHABLE && (long) alternativeDist + otherDist < best) {
+          best = alternativeDist + otherDist;
+          meet = neighbor;
+        }
+      }
+    }
+    if (MetricsRegistry.ENABLED) {
+      metrics.endSearch();
+    }
+    return meet;
+  }
+
+  void checkVertex(int v) {
+    if (v < 0 || v >= graph.getNumberVertices()) {
+      throw new IllegalArgumentException("Knoten " + v + " existiert nicht");
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package de.bht.algo.dijkstra;
+
+/**
+ * Das Ergebnis einer Suche als int-Arrays, indiziert ueber die Knoten-Id.
+ * Endgueltig und damit enthalten sind nur die abgearbeiteten Knoten: bei einer
+ * Suche zu allen Knoten alle erreichbaren, bei einer Suche zu einem Ziel die
+ * bis zum Ziel abgearbeiteten (bei bidirektionaler Suche nur die Knoten des
+ * Weges). Alle anderen gelten als nicht erreichbar. Wege werden erst bei
+ * Bedarf aus den Vorgaengern zusammengesetzt.
+ */
+public class ShortestPathResult {
+  private final int source;
+  private final int target;
+  private final int[] dist;
+  private final int[] pred;
+  private final int[] settled;
+  private final int settledCount;
+
+  ShortestPathResult(int source, int target, int[] dist, int[] pred, int[] settled, int settledCount) {
+    this.source = source;
+    this.target = target;
+    this.dist = dist;
+    this.pred = pred;
+    this.settled = settled;
+    this.settledCount = settledCount;
+  }
+
+  public int getSource() {
+    return source;
+  }
+
+  /**
+   * @return der Zielknoten oder -1 bei einer Suche zu allen Knoten
+   */
+  public int getTarget() {
+    return target;
+  }
+
+  /**
+   * @return die Distanz vom Start oder {@link ShortestPathEngine#UNREACHABLE}
+   */
+  public int getDistance(int v) {
+    return dist[v];
+  }
+
+  /**
+   * @return der Vorgaenger auf einem kuerzesten Weg oder -1 (Start und nicht
+   *         erreichbare Knoten)
+   */
+  public int getPredecessor(int v) {
+    return pred[v];
+  }
+
+  public boolean isReachable(int v) {
+    return dist[v] != ShortestPathEngine.UNREACHABLE;
+  }
+
+  /**
+   * @return alle Distanzen (nicht kopiert)
+   */
+  public int[] getDistances() {
+    return dist;
+  }
+
+  /**
+   * @return alle Vorgaenger (nicht kopiert)
+   */
+  public int[] getPredecessors() {
+    return pred;
+  }
+
+  /**
+   * @return Anzahl der abgearbeiteten Knoten
+   */
+  public int getSettledCount() {
+    return settledCount;
+  }
+
+  /**
+   * @return der i-te abgearbeitete Knoten (in der Reihenfolge der Suche)
+   */
+  public int getSettled(int i) {
+    if (i < 0 || i >= settledCount) {
+      throw new IndexOutOfBoundsException("" + i);
+    }
+    return settled[i];
+  }
+
+  /**
+   * Folgt den Vorgaengern von v zurueck zum Start
+   *
+   * @return die Knoten des Weges vom Start bis v oder null, wenn v nicht
+   *         erreichbar ist
+   */
+  public int[] path(int v) {
+    if (!isReachable(v)) {
+      return null;
+    }
+    int length = 1;
+    for (int u = v; u != source; u = pred[u]) {
+      length++;
+    }
+    int[] path = new int[length];
+    for (int u = v, i = length - 1; i >= 0; u = pred[u], i--) {
+      path[i] = u;
+    }
+    return path;
+  }
+
+  /**
+   * @return der Platz der Arrays in Bytes
+   */
+  long arrayBytes() {
+    return 4L * (dist.length + pred.length + settled.length);
+  }
+}
@@ -0,0 +1,326 @@
+package de.bht.algo.floydwarshall;
+
+import graph.CsrGraph;
+import graph.Edge;
+import graph.Graph;
+import graph.IndexedGraph;
+import graph.Vertex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Floyd-Warshall fuer alle Knotenpaare, auch mit negativen Kantengewichten.
+ * Distanzen und Nachfolger liegen zeilenweise in flachen Arrays der Laenge
+ * n*n: dist[i*n+j] ist die Distanz von i nach j, next[i*n+j] der erste Knoten
+ * nach i auf einem kuerzesten Weg nach j.
+ * <p>
+ * Die Matrix wird in Kacheln der Groesse blockSize x blockSize zerlegt
+ * (blocked Floyd-Warshall). Fuer jeden Block k von Zwischenknoten gibt es drei
+ * Phasen:
+ * <ol>
+ * <li>die Diagonalkachel (k,k),</li>
+ * <li>die uebrigen Kacheln in Zeile k und Spalte k, die nur von der
+ * Diagonalkachel abhaengen,</li>
+ * <li>alle anderen Kacheln, die nur von Zeile k und Spalte k abhaengen.</li>
+ * </ol>
+ * Die Kacheln der Phasen 2 und 3 sind voneinander unabhaengig und laufen
+ * parallel auf einem {@link ForkJoinPool}. Eine Kachel passt in den Cache, so
+ * dass die innere Schleife nicht bei jedem k die ganze Matrix durchlaeuft.
+ * <p>
+ * Weil die Kacheln nicht in der Reihenfolge des einfachen Floyd-Warshall
+ * bearbeitet werden, koennten die Nachfolger bei Zyklen der Laenge 0 im Kreis
+ * zeigen. Intern wird daher jedes Gewicht w als w * 2^s + 1 gespeichert (mit
+ * 2^s &gt;= n): bei gleich langen Wegen gewinnt der mit weniger Kanten, und
+ * jeder Zyklus ist echt positiv, solange es keinen negativen gibt.
+ */
+public class FloydWarshall {
+
+  /** Distanz fuer nicht erreichbare Knotenpaare */
+  public static final long UNREACHABLE = Long.MAX_VALUE;
+
+  /** Standard-Kachelgroesse; 64 x 64 long-Werte belegen 32 KB */
+  public static final int DEFAULT_BLOCK_SIZE = 64;
+
+  // "unendlich" waehrend der Berechnung; so gross, dass Summen mit echten
+  // Distanzen weder ueberlaufen noch unter INF / 2 fallen
+  private static final long INF = Long.MAX_VALUE / 4;
+
+  private final int n;
+  private final int blockSize;
+  private final int blocks;
+  // Gewichte werden um shift Bit nach links geschoben, die unteren Bits
+  // zaehlen die Kanten
+  private final int shift;
+  private final long[] dist;
+  private final int[] next;
+  private boolean computed;
+  private boolean negativeCycle;
+
+  /**
+   * @param graph
+   *          der Graph
+   */
+  public FloydWarshall(IndexedGraph graph) {
+    this(graph, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * @param graph
+   *          der Graph
+   * @param blockSize
+   *          Kantenlaenge einer Kachel
+   */
+  public FloydWarshall(IndexedGraph graph, int blockSize) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("Kachelgroesse muss mindestens 1 sein");
+    }
+    n = graph.getNumberVertices();
+    if ((long) n * n > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Zu viele Knoten fuer eine Distanzmatrix: " + n);
+    }
+    this.blockSize = blockSize;
+    blocks = (n + blockSize - 1) / blockSize;
+    shift = 32 - Integer.numberOfLeadingZeros(Math.max(n - 1, 1));
+    long maxWeight = 0;
+    for (int e = 0; e < graph.getNumberEdges(); e++) {
+      maxWeight = Math.max(maxWeight, Math.abs((long) graph.getWeight(e)));
+    }
+    if ((maxWeight + 1) * n >= INF >> (shift + 1)) {
+      throw new IllegalArgumentException("Kantengewichte zu gross fuer " + n + " Knoten");
+    }
+    dist = new long[n * n];
+    next = new int[n * n];
+    Arrays.fill(dist, INF);
+    Arrays.fill(next, -1);
+    for (int i = 0; i < n; i++) {
+      dist[i * n + i] = 0;
+      next[i * n + i] = i;
+      for (int e = graph.firstEdge(i), end = graph.endEdge(i); e < end; e++) {
+        int ij = i * n + graph.getTarget(e);
+        long weight = ((long) graph.getWeight(e) << shift) + 1;
+        if (weight < dist[ij]) {
+          dist[ij] = weight;
+          next[ij] = graph.getTarget(e);
+        }
+      }
+    }
+  }
+
+  /**
+   * @param graph
+   *          der Graph mit Knoten-Id's 0 .. n-1
+   */
+  public <V extends Vertex, E extends Edge<V>> FloydWarshall(Graph<V, E> graph) {
+    this(CsrGraph.fromGraph(graph));
+  }
+
+  /**
+   * Berechnet alle Distanzen auf einem eigenen ForkJoinPool mit so vielen
+   * Threads wie Prozessoren
+   *
+   * @return false, wenn der Graph einen negativen Zyklus enthaelt
+   */
+  public boolean compute() {
+    ForkJoinPool pool = new ForkJoinPool();
+    try {
+      return compute(pool);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Berechnet alle Distanzen; kann nur einmal aufgerufen werden
+   *
+   * @param pool
+   *          der Pool fuer die unabhaengigen Kacheln
+   * @return false, wenn der Graph einen negativen Zyklus enthaelt
+   */
+  public boolean compute(ForkJoinPool pool) {
+    if (computed) {
+      throw new IllegalStateException("Die Distanzen wurden bereits berechnet");
+    }
+    for (int kb = 0; kb < blocks; kb++) {
+      // Phase 1: Diagonalkachel
+      relaxTile(kb, kb, kb);
+
+      // Phase 2: Zeile und Spalte kb
+      List<int[]> tiles = new ArrayList<int[]>(2 * blocks);
+      for (int b = 0; b < blocks; b++) {
+        if (b != kb) {
+          tiles.add(new int[] { kb, b });
+          tiles.add(new int[] { b, kb });
+        }
+      }
+      pool.invoke(new TileAction(tiles, 0, tiles.size(), kb));
+
+      // Phase 3: alle uebrigen Kacheln
+      tiles.clear();
+      for (int ib = 0; ib < blocks; ib++) {
+        for (int jb = 0; jb < blocks; jb++) {
+          if (ib != kb && jb != kb) {
+            tiles.add(new int[] { ib, jb });
+          }
+        }
+      }
+      pool.invoke(new TileAction(tiles, 0, tiles.size(), kb));
+    }
+
+    for (int i = 0; i < n * n; i++) {
+      if (dist[i] >= INF / 2) {
+        dist[i] = UNREACHABLE;
+        next[i] = -1;
+      } else {
+        dist[i] >>= shift;
+      }
+    }
+    for (int i = 0; i < n; i++) {
+      if (dist[i * n + i] < 0) {
+        negativeCycle = true;
+      }
+    }
+    computed = true;
+    return !negativeCycle;
+  }
+
+  public int getNumberVertices() {
+    return n;
+  }
+
+  /**
+   * @return true, wenn der Graph einen negativen Zyklus enthaelt; die
+   *         Distanzen sind dann nicht aussagekraeftig
+   */
+  public boolean hasNegativeCycle() {
+    checkComputed();
+    return negativeCycle;
+  }
+
+  /**
+   * @return die Distanz von source nach target oder {@link #UNREACHABLE}
+   */
+  public long getDist(int source, int target) {
+    checkComputed();
+    return dist[source * n + target];
+  }
+
+  /**
+   * @return die Distanzmatrix zeilenweise (dist[i*n+j]); das Array wird nicht
+   *         kopiert und darf nicht veraendert werden
+   */
+  public long[] getDistanceMatrix() {
+    checkComputed();
+    return dist;
+  }
+
+  /**
+   * @return die Nachfolgermatrix zeilenweise (erster Knoten nach i auf einem
+   *         kuerzesten Weg nach j oder -1); das Array wird nicht kopiert und
+   *         darf nicht veraendert werden
+   */
+  public int[] getNextHopMatrix() {
+    checkComputed();
+    return next;
+  }
+
+  /**
+   * Folgt den Nachfolgern von source bis target
+   *
+   * @return die Knoten des Weges von source bis target oder null, wenn target
+   *         nicht erreichbar ist
+   * @throws IllegalStateException
+   *           wenn der Graph einen negativen Zyklus enthaelt
+   */
+  public int[] path(int source, int target) {
+    checkComputed();
+    if (negativeCycle) {
+      throw new IllegalStateException("Der Graph enthält einen negativen Zyklus");
+    }
+    if (next[source * n + target] == -1) {
+      return null;
+    }
+    int length = 1;
+    for (int v = source; v != target; v = next[v * n + target]) {
+      length++;
+    }
+    int[] path = new int[length];
+    for (int v = source, i = 0; i < length; v = next[v * n + target], i++) {
+      path[i] = v;
+    }
+    return path;
+  }
+
+  /**
+   * Relaxiert die Kachel (ib,jb) ueber alle Zwischenknoten des Blocks kb
+   */
+  private void relaxTile(int ib, int jb, int kb) {
+    int iFirst = ib * blockSize;
+    int iEnd = Math.min(iFirst + blockSize, n);
+    int jFirst = jb * blockSize;
+    int jEnd = Math.min(jFirst + blockSize, n);
+    int kFirst = kb * blockSize;
+    int kEnd = Math.min(kFirst + blockSize, n);
+    for (int k = kFirst; k < kEnd; k++) {
+      int kRow = k * n;
+      for (int i = iFirst; i < iEnd; i++) {
+        int iRow = i * n;
+        long ik = dist[iRow + k];
+        if (ik >= INF / 2) {
+          continue;
+        }
+        int nextIk = next[iRow + k];
+        for (int j = jFirst; j < jEnd; j++) {
+          long alternativeDist = ik + dist[kRow + j];
+          if (alternativeDist < dist[iRow + j]) {
+            dist[iRow + j] = alternativeDist;
+            next[iRow + j] = nextIk;
+          }
+        }
+      }
+    }
+  }
+
+  private void checkComputed() {
+    if (!computed) {
+      throw new IllegalStateException("Die Distanzen wurden noch nicht berechnet");
+    }
+  }
+
+  /**
+   * Bearbeitet die Kacheln tiles[first .. end-1] einer Phase; teilt sich
+   * rekursiv, bis nur noch eine Kachel uebrig ist
+   */
+  private class TileAction extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final List<int[]> tiles;
+    private final int first;
+    private final int end;
+    private final int kb;
+
+    TileAction(List<int[]> tiles, int first, int end, int kb) {
+      this.tiles = tiles;
+      this.first = first;
+      this.end = end;
+      this.kb = kb;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - first == 1) {
+        int[] tile = tiles.get(first);
+        relaxTile(tile[0], tile[1], kb);
+        return;
+      }
+      if (end == first) {
+        return;
+      }
+      int middle = (first + end) >>> 1;
+      invokeAll(new TileAction(tiles, first, middle, kb), new TileAction(tiles, middle, end, kb));
+    }
+  }
+}
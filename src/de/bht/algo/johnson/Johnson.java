@@ -0,0 +1,204 @@
+package de.bht.algo.johnson;
+
+import de.bht.algo.bellmanford.BellmanFord;
+import de.bht.algo.dijkstra.ShortestPathEngine;
+import graph.CsrGraph;
+import graph.Edge;
+import graph.Graph;
+import graph.IndexedGraph;
+import graph.Vertex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Johnsons Algorithmus fuer kuerzeste Wege zwischen allen Knotenpaaren in
+ * duennen Graphen mit negativen Kantengewichten.
+ * <p>
+ * {@link #reweight()} bestimmt mit Bellman-Ford ein Potential h (die Distanzen
+ * von einem virtuellen Knoten mit 0-Kanten zu allen Knoten) und gewichtet jede
+ * Kante (u,v) um zu w(u,v) + h(u) - h(v) &gt;= 0. Danach ist jede Zeile der
+ * Distanzmatrix ein gewoehnlicher Dijkstra auf dem umgewichteten Graphen; die
+ * echte Distanz ist d'(s,t) - h(s) + h(t).
+ * <p>
+ * {@link #computeAll} verteilt die n Dijkstra-Laeufe auf mehrere Worker und
+ * gibt jede Zeile sofort an einen {@link RowConsumer} weiter, die n*n
+ * Distanzen liegen also nie gleichzeitig im Speicher. Jeder Worker hat seinen
+ * eigenen Zeilenpuffer, Heap und Distanz-Arrays kommen aus dem Pool der
+ * {@link ShortestPathEngine} und werden ebenfalls wiederverwendet.
+ */
+public class Johnson {
+
+  /** Distanz fuer nicht erreichbare Knoten */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  private final IndexedGraph graph;
+  private final int n;
+  private int[] potential;
+  private int[] negativeCycle;
+  private ShortestPathEngine engine;
+
+  /**
+   * @param graph
+   *          der Graph; darf danach nicht mehr veraendert werden
+   */
+  public Johnson(IndexedGraph graph) {
+    this.graph = graph;
+    n = graph.getNumberVertices();
+  }
+
+  /**
+   * @param graph
+   *          der Graph mit Knoten-Id's 0 .. n-1
+   */
+  public <V extends Vertex, E extends Edge<V>> Johnson(Graph<V, E> graph) {
+    this(CsrGraph.fromGraph(graph));
+  }
+
+  /**
+   * Berechnet das Potential und den umgewichteten Graphen; muss vor den
+   * Distanzanfragen aufgerufen werden
+   *
+   * @return false, wenn der Graph einen negativen Zyklus enthaelt (siehe
+   *         {@link #getNegativeCycle()})
+   * @throws IllegalArgumentException
+   *           wenn ein umgewichtetes Kantengewicht nicht mehr in einen int
+   *           passt
+   */
+  public boolean reweight() {
+    BellmanFord bellmanFord = new BellmanFord(graph);
+    if (!bellmanFord.runFromAll()) {
+      negativeCycle = bellmanFord.getNegativeCycle();
+      return false;
+    }
+    potential = new int[n];
+    for (int v = 0; v < n; v++) {
+      potential[v] = bellmanFord.getDist(v);
+    }
+
+    int[] offsets = new int[n + 1];
+    for (int u = 0; u < n; u++) {
+      offsets[u + 1] = offsets[u] + graph.endEdge(u) - graph.firstEdge(u);
+    }
+    int[] targets = new int[offsets[n]];
+    int[] weights = new int[offsets[n]];
+    for (int u = 0; u < n; u++) {
+      int pos = offsets[u];
+      for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+        int v = graph.getTarget(e);
+        long weight = (long) graph.getWeight(e) + potential[u] - potential[v];
+        if (weight > Integer.MAX_VALUE) {
+          throw new IllegalArgumentException("Umgewichtete Kante " + u + " -> " + v + " ist zu gross");
+        }
+        targets[pos] = v;
+        weights[pos] = (int) weight;
+        pos++;
+      }
+    }
+    engine = new ShortestPathEngine(new CsrGraph(offsets, targets, weights));
+    negativeCycle = null;
+    return true;
+  }
+
+  /**
+   * @return die Knoten des negativen Zyklus, den {@link #reweight()} gefunden
+   *         hat, oder null
+   */
+  public int[] getNegativeCycle() {
+    return negativeCycle == null ? null : negativeCycle.clone();
+  }
+
+  /**
+   * @return das Potential h(v) (Distanz vom virtuellen Startknoten, also &lt;=
+   *         0)
+   */
+  public int getPotential(int v) {
+    checkReweighted();
+    return potential[v];
+  }
+
+  /**
+   * Berechnet eine Zeile der Distanzmatrix
+   *
+   * @return ein neues Array mit den Distanzen von source ({@link #UNREACHABLE}
+   *         fuer nicht erreichbare Knoten)
+   */
+  public int[] distances(int source) {
+    int[] row = new int[n];
+    distances(source, row);
+    return row;
+  }
+
+  /**
+   * Berechnet eine Zeile der Distanzmatrix in ein vorhandenes Array
+   *
+   * @param row
+   *          Array mit mindestens n Eintraegen
+   */
+  public void distances(int source, int[] row) {
+    checkReweighted();
+    engine.distances(source, row);
+    int hs = potential[source];
+    for (int v = 0; v < n; v++) {
+      if (row[v] != UNREACHABLE) {
+        row[v] = (int) ((long) row[v] - hs + potential[v]);
+      }
+    }
+  }
+
+  /**
+   * Berechnet alle Zeilen der Distanzmatrix. Die Worker holen sich die
+   * Startknoten der Reihe nach aus einem gemeinsamen Zaehler, so dass auch
+   * unterschiedlich teure Zeilen gleichmaessig verteilt werden.
+   *
+   * @param executor
+   *          der Executor fuer die Worker
+   * @param workers
+   *          Anzahl der Worker (in der Regel die Anzahl der Threads des
+   *          Executors)
+   * @param consumer
+   *          empfaengt die fertigen Zeilen; wird aus den Workern heraus
+   *          aufgerufen
+   * @throws InterruptedException
+   *           wenn der Thread beim Warten unterbrochen wird
+   */
+  public void computeAll(ExecutorService executor, int workers, final RowConsumer consumer)
+      throws InterruptedException {
+    checkReweighted();
+    final AtomicInteger nextSource = new AtomicInteger();
+    List<Future<?>> futures = new ArrayList<Future<?>>(workers);
+    for (int i = 0; i < workers; i++) {
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() {
+          int[] row = new int[n];
+          for (int s = nextSource.getAndIncrement(); s < n; s = nextSource.getAndIncrement()) {
+            distances(s, row);
+            consumer.accept(s, row);
+          }
+          return null;
+        }
+      }));
+    }
+    for (Future<?> f : futures) {
+      try {
+        f.get();
+      } catch (ExecutionException e) {
+        // die uebrigen Worker nehmen keine neuen Zeilen mehr
+        nextSource.set(n);
+        throw new RuntimeException("Berechnung der Distanzmatrix fehlgeschlagen", e.getCause());
+      }
+    }
+  }
+
+  private void checkReweighted() {
+    if (engine == null) {
+      throw new IllegalStateException("Der Graph wurde noch nicht umgewichtet");
+    }
+  }
+}
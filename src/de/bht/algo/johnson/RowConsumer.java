@@ -0,0 +1,21 @@
+package de.bht.algo.johnson;
+
+/**
+ * Empfaengt die Zeilen einer Distanzmatrix einzeln, so dass die ganze Matrix
+ * nie gleichzeitig im Speicher liegen muss
+ */
+public interface RowConsumer {
+
+  /**
+   * Wird fuer jede Zeile genau einmal aufgerufen, in beliebiger Reihenfolge
+   * und aus mehreren Threads gleichzeitig
+   *
+   * @param source
+   *          der Startknoten der Zeile
+   * @param distances
+   *          die Distanzen von source zu allen Knoten; das Array wird nach der
+   *          Rueckkehr fuer die naechste Zeile wiederverwendet und muss bei
+   *          Bedarf kopiert werden
+   */
+  void accept(int source, int[] distances);
+}
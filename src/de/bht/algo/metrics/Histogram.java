@@ -0,0 +1,125 @@
+package de.bht.algo.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ein Histogramm fuer nicht-negative long-Werte nach dem Vorbild von
+ * HdrHistogram: Werte bis 127 werden exakt gezaehlt, groessere in 64 gleich
+ * breite Eimer je Zweierpotenz. Der relative Fehler eines Perzentils ist
+ * dadurch hoechstens 1/64 (etwa 1,6 %), unabhaengig vom Wertebereich, und das
+ * Histogramm belegt immer dieselben gut 29 KB.
+ * <p>
+ * {@link #record(long)} kommt ohne Sperren aus und darf von beliebig vielen
+ * Threads gleichzeitig aufgerufen werden. Ein {@link #snapshot()} waehrend
+ * gleichzeitiger Aufzeichnung kann einzelne Werte in Anzahl und Eimern
+ * unterschiedlich mitzaehlen.
+ */
+public class Histogram {
+
+  // 2^SUB_BITS Eimer je Zweierpotenz
+  private static final int SUB_BITS = 6;
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  // Werte unter 2 * SUB_COUNT liegen in eigenen Eimern
+  private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+  /**
+   * Zaehlt einen Wert
+   *
+   * @throws IllegalArgumentException
+   *           wenn der Wert negativ ist
+   */
+  public void record(long value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Negativer Wert: " + value);
+    }
+    counts.incrementAndGet(bucket(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+    long m;
+    while (value < (m = min.get()) && !min.compareAndSet(m, value)) {
+      // erneut versuchen
+    }
+    while (value > (m = max.get()) && !max.compareAndSet(m, value)) {
+      // erneut versuchen
+    }
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Setzt das Histogramm zurueck; gleichzeitig gezaehlte Werte koennen dabei
+   * verloren gehen
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    count.set(0);
+    sum.set(0);
+    min.set(Long.MAX_VALUE);
+    max.set(Long.MIN_VALUE);
+  }
+
+  /**
+   * @return Anzahl, Minimum, Maximum, Mittelwert und die ueblichen Perzentile
+   */
+  public HistogramSnapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts.get(i);
+      total += copy[i];
+    }
+    if (total == 0) {
+      return new HistogramSnapshot(0, 0, 0, 0, 0, 0, 0, 0);
+    }
+    long lo = min.get();
+    long hi = max.get();
+    return new HistogramSnapshot(total, lo, hi, (double) sum.get() / count.get(),
+        percentile(copy, total, 50, lo, hi), percentile(copy, total, 90, lo, hi),
+        percentile(copy, total, 99, lo, hi), percentile(copy, total, 99.9, lo, hi));
+  }
+
+  /**
+   * @return der groesste Wert im Eimer, in dem das Perzentil liegt, begrenzt
+   *         auf [lo, hi]
+   */
+  private static long percentile(long[] copy, long total, double percent, long lo, long hi) {
+    long rank = Math.max(1, (long) Math.ceil(percent / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < copy.length; i++) {
+      seen += copy[i];
+      if (seen >= rank) {
+        return Math.max(lo, Math.min(hi, highestValue(i)));
+      }
+    }
+    return hi;
+  }
+
+  static int bucket(long value) {
+    if (value < 2 * SUB_COUNT) {
+      return (int) value;
+    }
+    // value >> shift liegt in [SUB_COUNT, 2 * SUB_COUNT)
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    return (shift + 1) * SUB_COUNT + (int) (value >> shift) - SUB_COUNT;
+  }
+
+  static long highestValue(int bucket) {
+    if (bucket < 2 * SUB_COUNT) {
+      return bucket;
+    }
+    int shift = bucket / SUB_COUNT - 1;
+    long lowest = (long) (bucket % SUB_COUNT + SUB_COUNT) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+}
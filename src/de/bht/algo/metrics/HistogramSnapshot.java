@@ -0,0 +1,78 @@
+package de.bht.algo.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Der unveraenderliche Stand eines {@link Histogram}. Als Attribut einer
+ * MXBean erscheint er in JMX-Werkzeugen als CompositeData mit je einem Eintrag
+ * pro Getter.
+ */
+public class HistogramSnapshot {
+  private final long count;
+  private final long min;
+  private final long max;
+  private final double mean;
+  private final long p50;
+  private final long p90;
+  private final long p99;
+  private final long p999;
+
+  @ConstructorProperties({ "count", "min", "max", "mean", "p50", "p90", "p99", "p999" })
+  public HistogramSnapshot(long count, long min, long max, double mean, long p50, long p90, long p99, long p999) {
+    this.count = count;
+    this.min = min;
+    this.max = max;
+    this.mean = mean;
+    this.p50 = p50;
+    this.p90 = p90;
+    this.p99 = p99;
+    this.p999 = p999;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return der kleinste Wert oder 0 ohne Werte
+   */
+  public long getMin() {
+    return min;
+  }
+
+  /**
+   * @return der groesste Wert oder 0 ohne Werte
+   */
+  public long getMax() {
+    return max;
+  }
+
+  public double getMean() {
+    return mean;
+  }
+
+  /**
+   * @return der Median
+   */
+  public long getP50() {
+    return p50;
+  }
+
+  public long getP90() {
+    return p90;
+  }
+
+  public long getP99() {
+    return p99;
+  }
+
+  public long getP999() {
+    return p999;
+  }
+
+  @Override
+  public String toString() {
+    return "n=" + count + " min=" + min + " mean=" + String.format("%.1f", mean) + " p50=" + p50 + " p90=" + p90
+        + " p99=" + p99 + " p99.9=" + p999 + " max=" + max;
+  }
+}
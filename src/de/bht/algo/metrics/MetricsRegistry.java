@@ -0,0 +1,197 @@
+package de.bht.algo.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Sammelt die {@link QueryMetrics} aller Suchen in Histogrammen, dazu Treffer
+ * und Verdraengungen der Ergebnis-Caches, und stellt sie als Schnappschuss
+ * ({@link #snapshot()}) und als MXBean unter {@value #OBJECT_NAME} bereit.
+ * <p>
+ * Gemessen wird nur, wenn die JVM mit -Dde.bht.algo.metrics=true gestartet
+ * wurde. {@link #ENABLED} ist eine Konstante; der JIT-Compiler entfernt die
+ * damit abgefragten Zaehler in den Suchschleifen deshalb vollstaendig, und
+ * ohne die Eigenschaft kosten die Messpunkte nichts.
+ */
+public class MetricsRegistry implements MetricsRegistryMXBean {
+
+  /** true, wenn die Suchen gemessen werden */
+  public static final boolean ENABLED = Boolean.getBoolean("de.bht.algo.metrics");
+
+  /** Name der MXBean */
+  public static final String OBJECT_NAME = "de.bht.algo:type=Metrics";
+
+  private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+  static {
+    if (ENABLED) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(DEFAULT, new ObjectName(OBJECT_NAME));
+      } catch (JMException e) {
+        throw new IllegalStateException("MXBean " + OBJECT_NAME + " konnte nicht registriert werden", e);
+      }
+    }
+  }
+
+  private final Histogram loadTime = new Histogram();
+  private final Histogram initTime = new Histogram();
+  private final Histogram searchTime = new Histogram();
+  private final Histogram pathTime = new Histogram();
+  private final Histogram settled = new Histogram();
+  private final Histogram edgesRelaxed = new Histogram();
+  private final Histogram successfulRelaxations = new Histogram();
+  private final Histogram heapOperations = new Histogram();
+  private final Histogram peakQueueSize = new Histogram();
+  private final AtomicLong cacheHits = new AtomicLong();
+  private final AtomicLong cacheMisses = new AtomicLong();
+  private final AtomicLong cacheEvictions = new AtomicLong();
+
+  /**
+   * @return die Registry, in die alle Suchen schreiben
+   */
+  public static MetricsRegistry getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Traegt eine abgeschlossene Anfrage ein; darf von mehreren Threads
+   * gleichzeitig aufgerufen werden
+   */
+  public void record(QueryMetrics query) {
+    initTime.record(query.getInitNanos());
+    searchTime.record(query.getSearchNanos());
+    pathTime.record(query.getPathNanos());
+    settled.record(query.getSettled());
+    edgesRelaxed.record(query.getEdgesRelaxed());
+    successfulRelaxations.record(query.getSuccessfulRelaxations());
+    heapOperations.record(query.getHeapOperations());
+    peakQueueSize.record(query.getPeakQueueSize());
+  }
+
+  /**
+   * Traegt die Dauer ein, einen Graphen zu laden
+   */
+  public void recordLoad(long nanos) {
+    loadTime.record(nanos);
+  }
+
+  /**
+   * Zaehlt einen Cache-Zugriff
+   *
+   * @param hit
+   *          true, wenn das Ergebnis im Cache lag
+   */
+  public void recordCacheAccess(boolean hit) {
+    (hit ? cacheHits : cacheMisses).incrementAndGet();
+  }
+
+  /**
+   * Zaehlt einen aus Platzgruenden verdraengten Cache-Eintrag
+   */
+  public void recordCacheEviction() {
+    cacheEvictions.incrementAndGet();
+  }
+
+  /**
+   * @return der aktuelle Stand aller Histogramme und Zaehler
+   */
+  public MetricsSnapshot snapshot() {
+    return new MetricsSnapshot(this);
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return ENABLED;
+  }
+
+  @Override
+  public long getQueryCount() {
+    return searchTime.getCount();
+  }
+
+  @Override
+  public HistogramSnapshot getLoadTimeNanos() {
+    return loadTime.snapshot();
+  }
+
+  @Override
+  public HistogramSnapshot getInitTimeNanos() {
+    return initTime.snapshot();
+  }
+
+  @Override
+  public HistogramSnapshot getSearchTimeNanos() {
+    return searchTime.snapshot();
+  }
+
+  @Override
+  public HistogramSnapshot getPathTimeNanos() {
+    return pathTime.snapshot();
+  }
+
+  @Override
+  public HistogramSnapshot getSettled() {
+    return settled.snapshot();
+  }
+
+  @Override
+  public HistogramSnapshot getEdgesRelaxed() {
+    return edgesRelaxed.snapshot();
+  }
+
+  @Override
+  public HistogramSnapshot getSuccessfulRelaxations() {
+    return successfulRelaxations.snapshot();
+  }
+
+  @Override
+  public HistogramSnapshot getHeapOperations() {
+    return heapOperations.snapshot();
+  }
+
+  @Override
+  public HistogramSnapshot getPeakQueueSize() {
+    return peakQueueSize.snapshot();
+  }
+
+  @Override
+  public long getCacheHits() {
+    return cacheHits.get();
+  }
+
+  @Override
+  public long getCacheMisses() {
+    return cacheMisses.get();
+  }
+
+  @Override
+  public long getCacheEvictions() {
+    return cacheEvictions.get();
+  }
+
+  @Override
+  public double getCacheHitRate() {
+    long hits = cacheHits.get();
+    long total = hits + cacheMisses.get();
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  @Override
+  public void reset() {
+    loadTime.reset();
+    initTime.reset();
+    searchTime.reset();
+    pathTime.reset();
+    settled.reset();
+    edgesRelaxed.reset();
+    successfulRelaxations.reset();
+    heapOperations.reset();
+    peakQueueSize.reset();
+    cacheHits.set(0);
+    cacheMisses.set(0);
+    cacheEvictions.set(0);
+  }
+}
@@ -0,0 +1,50 @@
+package de.bht.algo.metrics;
+
+/**
+ * Die JMX-Sicht auf die {@link MetricsRegistry}, z.B. in jconsole unter
+ * {@value MetricsRegistry#OBJECT_NAME}. Zeiten sind in Nanosekunden.
+ */
+public interface MetricsRegistryMXBean {
+
+  /**
+   * @return true, wenn die Suchen gemessen werden (Systemeigenschaft
+   *         de.bht.algo.metrics beim Start)
+   */
+  boolean isEnabled();
+
+  long getQueryCount();
+
+  HistogramSnapshot getLoadTimeNanos();
+
+  HistogramSnapshot getInitTimeNanos();
+
+  HistogramSnapshot getSearchTimeNanos();
+
+  HistogramSnapshot getPathTimeNanos();
+
+  HistogramSnapshot getSettled();
+
+  HistogramSnapshot getEdgesRelaxed();
+
+  HistogramSnapshot getSuccessfulRelaxations();
+
+  HistogramSnapshot getHeapOperations();
+
+  HistogramSnapshot getPeakQueueSize();
+
+  long getCacheHits();
+
+  long getCacheMisses();
+
+  long getCacheEvictions();
+
+  /**
+   * @return Anteil der Treffer an allen Cache-Zugriffen (0 ohne Zugriffe)
+   */
+  double getCacheHitRate();
+
+  /**
+   * Verwirft alle bisher gesammelten Werte
+   */
+  void reset();
+}
@@ -0,0 +1,119 @@
+package de.bht.algo.metrics;
+
+/**
+ * Der Stand aller Histogramme und Zaehler einer {@link MetricsRegistry} zu
+ * einem Zeitpunkt. Zeiten sind in Nanosekunden.
+ */
+public class MetricsSnapshot {
+  private final HistogramSnapshot loadTime;
+  private final HistogramSnapshot initTime;
+  private final HistogramSnapshot searchTime;
+  private final HistogramSnapshot pathTime;
+  private final HistogramSnapshot settled;
+  private final HistogramSnapshot edgesRelaxed;
+  private final HistogramSnapshot successfulRelaxations;
+  private final HistogramSnapshot heapOperations;
+  private final HistogramSnapshot peakQueueSize;
+  private final long cacheHits;
+  private final long cacheMisses;
+  private final long cacheEvictions;
+
+  MetricsSnapshot(MetricsRegistry registry) {
+    loadTime = registry.getLoadTimeNanos();
+    initTime = registry.getInitTimeNanos();
+    searchTime = registry.getSearchTimeNanos();
+    pathTime = registry.getPathTimeNanos();
+    settled = registry.getSettled();
+    edgesRelaxed = registry.getEdgesRelaxed();
+    successfulRelaxations = registry.getSuccessfulRelaxations();
+    heapOperations = registry.getHeapOperations();
+    peakQueueSize = registry.getPeakQueueSize();
+    cacheHits = registry.getCacheHits();
+    cacheMisses = registry.getCacheMisses();
+    cacheEvictions = registry.getCacheEvictions();
+  }
+
+  /**
+   * @return Anzahl der gemessenen Anfragen
+   */
+  public long getQueryCount() {
+    return searchTime.getCount();
+  }
+
+  public HistogramSnapshot getLoadTimeNanos() {
+    return loadTime;
+  }
+
+  public HistogramSnapshot getInitTimeNanos() {
+    return initTime;
+  }
+
+  public HistogramSnapshot getSearchTimeNanos() {
+    return searchTime;
+  }
+
+  public HistogramSnapshot getPathTimeNanos() {
+    return pathTime;
+  }
+
+  public HistogramSnapshot getSettled() {
+    return settled;
+  }
+
+  public HistogramSnapshot getEdgesRelaxed() {
+    return edgesRelaxed;
+  }
+
+  public HistogramSnapshot getSuccessfulRelaxations() {
+    return successfulRelaxations;
+  }
+
+  public HistogramSnapshot getHeapOperations() {
+    return heapOperations;
+  }
+
+  public HistogramSnapshot getPeakQueueSize() {
+    return peakQueueSize;
+  }
+
+  public long getCacheHits() {
+    return cacheHits;
+  }
+
+  public long getCacheMisses() {
+    return cacheMisses;
+  }
+
+  public long getCacheEvictions() {
+    return cacheEvictions;
+  }
+
+  /**
+   * @return Anteil der Treffer an allen Cache-Zugriffen (0 ohne Zugriffe)
+   */
+  public double getCacheHitRate() {
+    long total = cacheHits + cacheMisses;
+    return total == 0 ? 0 : (double) cacheHits / total;
+  }
+
+  /**
+   * @return eine Zeile je Histogramm bzw. fuer den Cache
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("load [ns]:              ").append(loadTime).append('\n');
+    sb.append("init [ns]:              ").append(initTime).append('\n');
+    sb.append("search [ns]:            ").append(searchTime).append('\n');
+    sb.append("path [ns]:              ").append(pathTime).append('\n');
+    sb.append("settled:                ").append(settled).append('\n');
+    sb.append("edges relaxed:          ").append(edgesRelaxed).append('\n');
+    sb.append("successful relaxations: ").append(successfulRelaxations).append('\n');
+    sb.append("heap operations:        ").append(heapOperations).append('\n');
+    sb.append("peak queue size:        ").append(peakQueueSize).append('\n');
+    sb.append("cache:                  hits=").append(cacheHits).append(" misses=").append(cacheMisses)
+        .append(" evictions=").append(cacheEvictions).append(" hit rate=")
+        .append(String.format("%.3f", getCacheHitRate())).append('\n');
+    return sb.toString();
+  }
+}
@@ -0,0 +1,155 @@
+package de.bht.algo.metrics;
+
+/**
+ * Zaehler und Phasenzeiten einer einzelnen Suche. Eine Instanz gehoert
+ * waehrend einer Anfrage genau einem Thread; die Suchschleifen rufen sie nur
+ * auf, wenn {@link MetricsRegistry#ENABLED} gesetzt ist.
+ * <p>
+ * Phasen: init von {@link #begin(long)} bis zum Ende von begin, search bis
+ * {@link #endSearch()}, path (Auslesen des Ergebnisses) bis {@link #finish()}.
+ */
+public class QueryMetrics {
+  private long settled;
+  private long edgesRelaxed;
+  private long improvements;
+  private long heapOperations;
+  private int peakQueueSize;
+  private long initNanos;
+  private long searchNanos;
+  private long pathNanos;
+  // Beginn der laufenden Phase
+  private long mark;
+  private boolean searched;
+
+  /**
+   * Beginnt eine neue Anfrage; alle Zaehler werden zurueckgesetzt
+   *
+   * @param start
+   *          System.nanoTime() zu Beginn der Initialisierung
+   */
+  public void begin(long start) {
+    settled = 0;
+    edgesRelaxed = 0;
+    improvements = 0;
+    heapOperations = 0;
+    peakQueueSize = 0;
+    searchNanos = 0;
+    pathNanos = 0;
+    searched = false;
+    mark = System.nanoTime();
+    initNanos = mark - start;
+  }
+
+  /**
+   * Ein Knoten wurde ohne Verbesserung in die Warteschlange eingefuegt (z.B.
+   * der Startknoten)
+   */
+  public void inserted(int queueSize) {
+    heapOperations++;
+    if (queueSize > peakQueueSize) {
+      peakQueueSize = queueSize;
+    }
+  }
+
+  /**
+   * Ein Knoten wurde aus der Warteschlange entnommen und abgearbeitet
+   */
+  public void settled() {
+    settled++;
+    heapOperations++;
+  }
+
+  /**
+   * Kanten wurden betrachtet, unabhaengig davon, ob sie etwas verbessern
+   */
+  public void relaxed(int edges) {
+    edgesRelaxed += edges;
+  }
+
+  /**
+   * Eine Kante hat eine Distanz verbessert und den Knoten eingefuegt oder
+   * seinen Schluessel verringert
+   *
+   * @param queueSize
+   *          Groesse der Warteschlange danach
+   */
+  public void improved(int queueSize) {
+    improvements++;
+    heapOperations++;
+    if (queueSize > peakQueueSize) {
+      peakQueueSize = queueSize;
+    }
+  }
+
+  /**
+   * Beendet die Suchphase; die Zeit danach zaehlt zur Wegphase
+   */
+  public void endSearch() {
+    long now = System.nanoTime();
+    searchNanos += now - mark;
+    mark = now;
+    searched = true;
+  }
+
+  /**
+   * Beendet die Anfrage
+   *
+   * @return true, wenn seit {@link #begin(long)} gesucht wurde und die
+   *         Anfrage gezaehlt werden soll
+   */
+  public boolean finish() {
+    if (!searched) {
+      return false;
+    }
+    pathNanos = System.nanoTime() - mark;
+    searched = false;
+    return true;
+  }
+
+  /**
+   * Addiert die Zaehler einer anderen Suche, z.B. der beiden Richtungen einer
+   * bidirektionalen Suche; die Zeiten bleiben unveraendert
+   */
+  public void add(QueryMetrics other) {
+    settled += other.settled;
+    edgesRelaxed += other.edgesRelaxed;
+    improvements += other.improvements;
+    heapOperations += other.heapOperations;
+    peakQueueSize = Math.max(peakQueueSize, other.peakQueueSize);
+  }
+
+  public long getSettled() {
+    return settled;
+  }
+
+  public long getEdgesRelaxed() {
+    return edgesRelaxed;
+  }
+
+  public long getSuccessfulRelaxations() {
+    return improvements;
+  }
+
+  /**
+   * @return Anzahl der Einfuege-, decrease-key- und Entnahmeoperationen
+   */
+  public long getHeapOperations() {
+    return heapOperations;
+  }
+
+  public int getPeakQueueSize() {
+    return peakQueueSize;
+  }
+
+  public long getInitNanos() {
+    return initNanos;
+  }
+
+  public long getSearchNanos() {
+    return searchNanos;
+  }
+
+  public long getPathNanos() {
+    return pathNanos;
+  }
+}
@@ -0,0 +1,313 @@
+package graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binaeres Dateiformat fuer CSR-Graphen, das ohne Parsen geoeffnet werden
+ * kann. Alle Werte sind little-endian:
+ *
+ * <pre>
+ * Kopf (64 Byte):  int MAGIC, int VERSION, int flags, int n, int m,
+ *                  int 0, long CRC32 der Abschnitte, Rest 0
+ * Abschnitte:      int offsets[n+1], int targets[m], int weights[m]
+ * falls FLAG_REVERSE: dieselben drei Abschnitte fuer den umgekehrten Graph
+ * </pre>
+ *
+ * Eine Textdatei im Format von {@link GraphLesen} wird mit
+ * {@link #convert(String, String, boolean, boolean)} (oder ueber
+ * {@link #main(String[])}) einmalig umgewandelt; danach liefert
+ * {@link #open(String)} in Millisekunden einen {@link MappedCsrGraph}, dessen
+ * Arrays direkt in der eingeblendeten Datei liegen.
+ */
+public class BinaryGraphFile {
+
+  /** "CSRG" little-endian */
+  public static final int MAGIC = 0x47525343;
+
+  /** Version des Formats */
+  public static final int VERSION = 1;
+
+  /** Die Datei enthaelt zusaetzlich den umgekehrten Graphen */
+  public static final int FLAG_REVERSE = 1;
+
+  /** Groesse des Kopfes in Byte */
+  public static final int HEADER_SIZE = 64;
+
+  // Position der Pruefsumme im Kopf
+  private static final int CHECKSUM_POSITION = 24;
+
+  // Puffergroesse beim Schreiben
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  /**
+   * Wandelt eine Textdatei in das Binaerformat um
+   *
+   * @param txt
+   *          eine Datei im Format von
+   *          {@link GraphLesen#FileToWeightedGraph(String, boolean)}
+   * @param bin
+   *          die zu schreibende Binaerdatei
+   * @param directed
+   *          true, wenn Graph gerichtet sein soll; false, wenn jede Kante {a,b}
+   *          durch (a,b) und (b,a) dargestellt werden soll
+   * @param withReverse
+   *          true, wenn der umgekehrte Graph mit abgelegt werden soll
+   * @throws IOException
+   *           wenn eine der Dateien nicht gelesen bzw. geschrieben werden kann
+   */
+  public static void convert(String txt, String bin, boolean directed, boolean withReverse) throws IOException {
+    CsrGraph graph = MappedGraphReader.readCsrGraph(txt, directed);
+    write(graph, withReverse ? CsrGraph.transpose(graph) : null, bin);
+  }
+
+  /**
+   * Schreibt einen Graphen im Binaerformat
+   *
+   * @param graph
+   *          der Graph
+   * @param reverse
+   *          der umgekehrte Graph oder null
+   * @param bin
+   *          die zu schreibende Datei
+   * @throws IOException
+   *           wenn die Datei nicht geschrieben werden kann
+   */
+  public static void write(IndexedGraph graph, IndexedGraph reverse, String bin) throws IOException {
+    int n = graph.getNumberVertices();
+    int m = graph.getNumberEdges();
+    if (reverse != null && (reverse.getNumberVertices() != n || reverse.getNumberEdges() != m)) {
+      throw new IllegalArgumentException("Der umgekehrte Graph passt nicht zum Graph");
+    }
+    FileChannel channel = FileChannel.open(Paths.get(bin), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    try {
+      SectionWriter out = new SectionWriter(channel);
+      out.writeSections(graph);
+      if (reverse != null) {
+        out.writeSections(reverse);
+      }
+      out.flush();
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      header.putInt(MAGIC).putInt(VERSION).putInt(reverse != null ? FLAG_REVERSE : 0).putInt(n).putInt(m);
+      header.putLong(CHECKSUM_POSITION, out.crc.getValue());
+      header.clear();
+      writeFully(channel, header, 0);
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Oeffnet eine Binaerdatei. Kopf und Dateigroesse werden geprueft, die
+   * Pruefsumme nicht (dazu muesste die ganze Datei gelesen werden, siehe
+   * {@link #verify(String)}).
+   *
+   * @param bin
+   *          eine mit {@link #write} geschriebene Datei
+   * @return der Graph, mit {@link MappedCsrGraph#getReverse()}, falls die
+   *         Datei den umgekehrten Graph enthaelt
+   * @throws IOException
+   *           wenn die Datei nicht gelesen werden kann oder kein Graph in
+   *           diesem Format ist
+   */
+  public static MappedCsrGraph open(String bin) throws IOException {
+    FileChannel channel = FileChannel.open(Paths.get(bin), StandardOpenOption.READ);
+    try {
+      Header header = readHeader(channel);
+      long sectionBytes = sectionBytes(header.n, header.m);
+      MappedCsrGraph reverse = null;
+      if ((header.flags & FLAG_REVERSE) != 0) {
+        reverse = map(channel, header, HEADER_SIZE + sectionBytes, null);
+      }
+      MappedCsrGraph graph = map(channel, header, HEADER_SIZE, reverse);
+      if (graph.endEdge(header.n - 1) != header.m || reverse != null && reverse.endEdge(header.n - 1) != header.m) {
+        throw new IOException(bin + ": Offsets passen nicht zur Kantenanzahl");
+      }
+      return graph;
+    } finally {
+      // die Einblendungen bleiben bis zur Garbage Collection der Puffer gueltig
+      channel.close();
+    }
+  }
+
+  /**
+   * Liest die ganze Datei und vergleicht die Pruefsumme
+   *
+   * @return true, wenn die Pruefsumme stimmt
+   * @throws IOException
+   *           wenn die Datei nicht gelesen werden kann oder kein Graph in
+   *           diesem Format ist
+   */
+  public static boolean verify(String bin) throws IOException {
+    FileChannel channel = FileChannel.open(Paths.get(bin), StandardOpenOption.READ);
+    try {
+      Header header = readHeader(channel);
+      return checksum(channel) == header.checksum;
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Wandelt eine Textdatei in das Binaerformat um
+   *
+   * @param args
+   *          Textdatei, Binaerdatei, optional "ungerichtet" und/oder
+   *          "rueckwaerts" (umgekehrten Graph mit ablegen)
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.out.println("Aufruf: BinaryGraphFile <graph.txt> <graph.bin> [ungerichtet] [rueckwaerts]");
+      return;
+    }
+    boolean directed = true;
+    boolean withReverse = false;
+    for (int i = 2; i < args.length; i++) {
+      directed &= !args[i].equals("ungerichtet");
+      withReverse |= args[i].equals("rueckwaerts");
+    }
+    convert(args[0], args[1], directed, withReverse);
+  }
+
+  /**
+   * Schreibt den Kopf fuer Abschnitte, die schon an ihrem Platz in der Datei
+   * stehen (z.B. direkt in die eingeblendete Datei geschrieben), und berechnet
+   * dazu die Pruefsumme
+   */
+  static void writeHeader(FileChannel channel, int flags, int n, int m) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(MAGIC).putInt(VERSION).putInt(flags).putInt(n).putInt(m);
+    header.putLong(CHECKSUM_POSITION, checksum(channel));
+    header.clear();
+    writeFully(channel, header, 0);
+  }
+
+  /**
+   * @return CRC32 aller Abschnitte hinter dem Kopf
+   */
+  private static long checksum(FileChannel channel) throws IOException {
+    CRC32 crc = new CRC32();
+    long size = channel.size();
+    for (long pos = HEADER_SIZE; pos < size; pos += MappedGraphReader.WINDOW_SIZE) {
+      long length = Math.min(MappedGraphReader.WINDOW_SIZE, size - pos);
+      crc.update(channel.map(FileChannel.MapMode.READ_ONLY, pos, length));
+    }
+    return crc.getValue();
+  }
+
+  private static Header readHeader(FileChannel channel) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    if (channel.size() < HEADER_SIZE) {
+      throw new IOException("Datei zu kurz fuer den Kopf");
+    }
+    while (buffer.hasRemaining()) {
+      channel.read(buffer, buffer.position());
+    }
+    buffer.flip();
+    if (buffer.getInt() != MAGIC) {
+      throw new IOException("Keine Graph-Binaerdatei");
+    }
+    int version = buffer.getInt();
+    if (version != VERSION) {
+      throw new IOException("Version " + version + " wird nicht unterstuetzt");
+    }
+    Header header = new Header();
+    header.flags = buffer.getInt();
+    header.n = buffer.getInt();
+    header.m = buffer.getInt();
+    header.checksum = buffer.getLong(CHECKSUM_POSITION);
+    if (header.n < 0 || header.m < 0) {
+      throw new IOException("Ungueltige Knoten- oder Kantenanzahl");
+    }
+    long expected = HEADER_SIZE + sectionBytes(header.n, header.m) * ((header.flags & FLAG_REVERSE) != 0 ? 2 : 1);
+    if (channel.size() != expected) {
+      throw new IOException("Dateigroesse " + channel.size() + " statt " + expected + " Byte");
+    }
+    return header;
+  }
+
+  /**
+   * @return Groesse der drei Abschnitte eines Graphen in Byte
+   */
+  private static long sectionBytes(int n, int m) {
+    return 4L * (n + 1) + 8L * m;
+  }
+
+  private static MappedCsrGraph map(FileChannel channel, Header header, long position, MappedCsrGraph reverse)
+      throws IOException {
+    int n = header.n;
+    int m = header.m;
+    OffHeapIntArray offsets = OffHeapIntArray.map(channel, position, n + 1L);
+    OffHeapIntArray targets = OffHeapIntArray.map(channel, position + 4L * (n + 1), m);
+    OffHeapIntArray weights = OffHeapIntArray.map(channel, position + 4L * (n + 1) + 4L * m, m);
+    return new MappedCsrGraph(n, m, offsets, targets, weights, reverse);
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  /**
+   * Die Werte des Kopfes
+   */
+  private static class Header {
+    int flags;
+    int n;
+    int m;
+    long checksum;
+  }
+
+  /**
+   * Schreibt int-Werte gepuffert hinter den Kopf und berechnet dabei die
+   * Pruefsumme
+   */
+  private static class SectionWriter {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long position = HEADER_SIZE;
+    final CRC32 crc = new CRC32();
+
+    SectionWriter(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    void writeSections(IndexedGraph graph) throws IOException {
+      int n = graph.getNumberVertices();
+      for (int v = 0; v < n; v++) {
+        putInt(graph.firstEdge(v));
+      }
+      putInt(graph.getNumberEdges());
+      for (int e = 0; e < graph.getNumberEdges(); e++) {
+        putInt(graph.getTarget(e));
+      }
+      for (int e = 0; e < graph.getNumberEdges(); e++) {
+        putInt(graph.getWeight(e));
+      }
+    }
+
+    private void putInt(int value) throws IOException {
+      if (!buffer.hasRemaining()) {
+        flush();
+      }
+      buffer.putInt(value);
+    }
+
+    void flush() throws IOException {
+      buffer.flip();
+      crc.update(buffer.duplicate());
+      int length = buffer.remaining();
+      writeFully(channel, buffer, position);
+      position += length;
+      buffer.clear();
+    }
+  }
+}
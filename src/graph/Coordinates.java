@@ -0,0 +1,40 @@
+package graph;
+
+/**
+ * Optionale Koordinaten der Knoten eines Graphen, z.B. fuer A*-Heuristiken.
+ * Knoten v hat die Koordinaten (getX(v), getY(v)); bei geographischen
+ * Koordinaten ist x der Laengen- und y der Breitengrad in Grad.
+ */
+public class Coordinates {
+  private final double[] x;
+  private final double[] y;
+
+  /**
+   * @param x
+   *          x-Koordinate bzw. Laengengrad je Knoten
+   * @param y
+   *          y-Koordinate bzw. Breitengrad je Knoten
+   */
+  public Coordinates(double[] x, double[] y) {
+    if (x.length != y.length) {
+      throw new IllegalArgumentException("x und y muessen gleich lang sein");
+    }
+    this.x = x;
+    this.y = y;
+  }
+
+  /**
+   * @return Anzahl der Knoten
+   */
+  public int size() {
+    return x.length;
+  }
+
+  public double getX(int v) {
+    return x[v];
+  }
+
+  public double getY(int v) {
+    return y[v];
+  }
+}
@@ -0,0 +1,223 @@
+package graph;
+
+/**
+ * Ein unveraenderlicher Graph im Compressed-Sparse-Row-Format. Alle Kanten
+ * liegen nach Startknoten sortiert in zwei int-Arrays (Endknoten und Gewicht),
+ * offsets[v] .. offsets[v+1]-1 sind die Kanten von Knoten v. Pro Kante werden
+ * so nur 8 Byte benoetigt, und das Durchlaufen der Nachbarn ist ein linearer
+ * Speicherzugriff.
+ */
+public class CsrGraph implements IndexedGraph {
+  private final int[] offsets; // Laenge n+1
+  private final int[] targets; // Laenge m
+  private final int[] weights; // Laenge m
+  // beim Aufbau bestimmt, damit Algorithmen die Kanten nicht je Anfrage
+  // durchsuchen muessen
+  private final int minWeight;
+  private final int maxWeight;
+
+  /**
+   * Erzeugt einen CSR-Graph aus fertigen Arrays; die Arrays werden nicht
+   * kopiert und duerfen danach nicht mehr veraendert werden
+   * 
+   * @param offsets
+   *          Array der Laenge n+1 mit den Kantenanfaengen je Knoten
+   * @param targets
+   *          Endknoten der Kanten
+   * @param weights
+   *          Gewichte der Kanten
+   */
+  public CsrGraph(int[] offsets, int[] targets, int[] weights) {
+    if (offsets.length == 0 || targets.length != weights.length || offsets[offsets.length - 1] != targets.length) {
+      throw new IllegalArgumentException("Inkonsistente CSR-Arrays");
+    }
+    this.offsets = offsets;
+    this.targets = targets;
+    this.weights = weights;
+    int[] range = weightRange(this);
+    this.minWeight = range[0];
+    this.maxWeight = range[1];
+  }
+
+  /**
+   * Durchlaeuft alle Kantengewichte einmal
+   *
+   * @return {kleinstes, groesstes} Kantengewicht, {0, 0} ohne Kanten
+   */
+  static int[] weightRange(IndexedGraph graph) {
+    int m = graph.getNumberEdges();
+    if (m == 0) {
+      return new int[] { 0, 0 };
+    }
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (int e = 0; e < m; e++) {
+      int w = graph.getWeight(e);
+      min = Math.min(min, w);
+      max = Math.max(max, w);
+    }
+    return new int[] { min, max };
+  }
+
+  /**
+   * Erzeugt einen CSR-Graph aus einer Kantenliste (Counting Sort nach
+   * Startknoten, Reihenfolge der Kanten je Knoten bleibt erhalten)
+   * 
+   * @param n
+   *          Anzahl der Knoten
+   * @param from
+   *          Startknoten der Kanten
+   * @param to
+   *          Endknoten der Kanten
+   * @param weight
+   *          Gewichte der Kanten
+   * @param m
+   *          Anzahl der zu uebernehmenden Kanten aus den Arrays
+   * @return der CSR-Graph
+   */
+  public static CsrGraph fromEdgeList(int n, int[] from, int[] to, int[] weight, int m) {
+    int[] offsets = new int[n + 1];
+    for (int i = 0; i < m; i++) {
+      offsets[from[i] + 1]++;
+    }
+    for (int v = 0; v < n; v++) {
+      offsets[v + 1] += offsets[v];
+    }
+    int[] next = new int[n];
+    System.arraycopy(offsets, 0, next, 0, n);
+    int[] targets = new int[m];
+    int[] weights = new int[m];
+    for (int i = 0; i < m; i++) {
+      int pos = next[from[i]]++;
+      targets[pos] = to[i];
+      weights[pos] = weight[i];
+    }
+    return new CsrGraph(offsets, targets, weights);
+  }
+
+  /**
+   * Friert einen Graph ein. Die Knoten-Id's werden direkt als Knotennummern
+   * verwendet, n ist also die groesste Id + 1 (entfernte Knoten bleiben als
+   * isolierte Knoten erhalten).
+   * 
+   * @param graph
+   *          der Graph mit nicht-negativen Knoten-Id's
+   * @return der CSR-Graph mit denselben Kanten und Gewichten
+   */
+  public static <V extends Vertex, E extends Edge<V>> CsrGraph fromGraph(Graph<V, E> graph) {
+    int n = 0;
+    for (V v : graph.vertices()) {
+      n = Math.max(n, v.getId() + 1);
+    }
+    int[] offsets = new int[n + 1];
+    EdgeCursor<V, E> cursor = graph.edgeCursor();
+    for (V v : graph.vertices()) {
+      cursor.reset(v.getId());
+      while (cursor.next()) {
+        offsets[v.getId() + 1]++;
+      }
+    }
+    for (int v = 0; v < n; v++) {
+      offsets[v + 1] += offsets[v];
+    }
+    int m = offsets[n];
+    int[] targets = new int[m];
+    int[] weights = new int[m];
+    for (V v : graph.vertices()) {
+      int pos = offsets[v.getId()];
+      cursor.reset(v.getId());
+      while (cursor.next()) {
+        targets[pos] = cursor.getTarget();
+        weights[pos] = cursor.getWeight();
+        pos++;
+      }
+    }
+    return new CsrGraph(offsets, targets, weights);
+  }
+
+  /**
+   * Erzeugt den umgekehrten Graphen: jede Kante (a,b) wird zu (b,a) mit
+   * demselben Gewicht. Die Kanten von v sind dann die in v eingehenden Kanten
+   * des urspruenglichen Graphen.
+   * 
+   * @param graph
+   *          ein Graph
+   * @return der umgekehrte Graph als CSR-Graph
+   */
+  public static CsrGraph transpose(IndexedGraph graph) {
+    int n = graph.getNumberVertices();
+    int m = graph.getNumberEdges();
+    int[] offsets = new int[n + 1];
+    for (int e = 0; e < m; e++) {
+      offsets[graph.getTarget(e) + 1]++;
+    }
+    for (int v = 0; v < n; v++) {
+      offsets[v + 1] += offsets[v];
+    }
+    int[] next = new int[n];
+    System.arraycopy(offsets, 0, next, 0, n);
+    int[] targets = new int[m];
+    int[] weights = new int[m];
+    for (int u = 0; u < n; u++) {
+      for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+        int pos = next[graph.getTarget(e)]++;
+        targets[pos] = u;
+        weights[pos] = graph.getWeight(e);
+      }
+    }
+    return new CsrGraph(offsets, targets, weights);
+  }
+
+  @Override
+  public int getNumberVertices() {
+    return offsets.length - 1;
+  }
+
+  @Override
+  public int getNumberEdges() {
+    return targets.length;
+  }
+
+  @Override
+  public int firstEdge(int v) {
+    return offsets[v];
+  }
+
+  @Override
+  public int endEdge(int v) {
+    return offsets[v + 1];
+  }
+
+  @Override
+  public int getTarget(int e) {
+    return targets[e];
+  }
+
+  @Override
+  public int getWeight(int e) {
+    return weights[e];
+  }
+
+  @Override
+  public int getMinWeight() {
+    return minWeight;
+  }
+
+  @Override
+  public int getMaxWeight() {
+    return maxWeight;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder s = new StringBuilder("CSR-Graph mit " + getNumberVertices() + " Knoten\n");
+    for (int v = 0; v < getNumberVertices(); v++) {
+      s.append(v + ": ");
+      for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+        s.append(targets[e] + " ");
+      }
+      s.append("\n");
+    }
+    return s.toString();
+  }
+}
@@ -34,6 +34,10 @@ public class Edge <V extends Vertex> {
 	public int getWeight() {
 		return weight;
 	}
+	/**
+	 * Aendert nur die Kante; fuer Kanten in einem Graph besser
+	 * {@link Graph#setWeight} verwenden, damit der Graph die Aenderung bemerkt
+	 */
 	public void setWeight(int weight) {
 		this.weight = weight;
 	}
@@ -0,0 +1,94 @@
+package graph;
+
+import java.util.ArrayList;
+
+/**
+ * Ein wiederverwendbarer Cursor ueber die ausgehenden Kanten eines Knotens. Er
+ * liefert Endknoten und Gewicht direkt als int-Werte, so dass beim
+ * Relaxieren weder Nachbarlisten kopiert noch Gewichte in einer Map gesucht
+ * werden muessen. Er legt auch beim Zuruecksetzen keine Objekte an (kein
+ * Iterator), so dass ein ganzer Suchlauf pro Kante nichts allokiert:
+ * 
+ * <pre>
+ * EdgeCursor&lt;Vertex, Edge&lt;Vertex&gt;&gt; c = graph.edgeCursor();
+ * c.reset(id);
+ * while (c.next()) {
+ *   relax(id, c.getTarget(), c.getWeight());
+ * }
+ * </pre>
+ * 
+ * @param <V>
+ *          eine Unterklasse der Klasse Vertex fuer Knoten eines Graphen
+ * @param <E>
+ *          eine Unterklasse der Klasse Edge<V> fuer die Kanten eines Graphen
+ */
+public class EdgeCursor<V extends Vertex, E extends Edge<V>> {
+  private final Graph<V, E> graph;
+  private int source;
+  private ArrayList<E> edges;
+  private int next;
+  private E edge;
+  private int target;
+  private int weight;
+
+  EdgeCursor(Graph<V, E> graph) {
+    this.graph = graph;
+  }
+
+  /**
+   * Setzt den Cursor vor die erste ausgehende Kante eines Knotens
+   * 
+   * @param id
+   *          ID eines Knotens
+   * @return true, falls der Knoten existiert
+   */
+  public boolean reset(int id) {
+    edges = graph.adjacency(id);
+    source = id;
+    edge = null;
+    next = 0;
+    return edges != null;
+  }
+
+  /**
+   * Geht zur naechsten Kante weiter
+   * 
+   * @return false, wenn keine Kante mehr vorhanden ist
+   */
+  public boolean next() {
+    if (edges == null || next >= edges.size()) {
+      edge = null;
+      return false;
+    }
+    edge = edges.get(next++);
+    target = edge.getVertexB().getId();
+    if (target == source) {
+      // ungerichtete Kante, die nur einmal abgelegt ist (vgl.
+      // Graph.getNeighbours)
+      target = edge.getVertexA().getId();
+    }
+    weight = edge.getWeight();
+    return true;
+  }
+
+  /**
+   * @return ID des Endknotens der aktuellen Kante
+   */
+  public int getTarget() {
+    return target;
+  }
+
+  /**
+   * @return Gewicht der aktuellen Kante
+   */
+  public int getWeight() {
+    return weight;
+  }
+
+  /**
+   * @return die aktuelle Kante
+   */
+  public E getEdge() {
+    return edge;
+  }
+}
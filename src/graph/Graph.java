@@ -2,7 +2,7 @@ package graph;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.ListIterator;
 
@@ -20,15 +20,32 @@ import org.apache.commons.collections.map.MultiKeyMap;
  *          eine Unterklasse der Klasse Edge<V> fuer die Kanten eines Graphen
  */
 public class Graph<V extends Vertex, E extends Edge<V>> {
-  private final HashMap<Integer, Integer> vertexIndex;
+  private final IntIntMap vertexIndex;
   // gibt zu einer Knoten-Id den Index an, an dem der Knoten in vertices
   // und die inzidenten Kanten in adjList abgelegt ist
+  private boolean dense = true;
+  // solange die Ids in Einfuegereihenfolge genau 0, 1, 2, ... sind und kein
+  // Knoten entfernt wurde, ist der Index die Id selbst und vertexIndex bleibt
+  // leer (so liest GraphLesen die Graphen ein)
+  private int numberVertices;
+  // groesste jemals eingefuegte Knoten-Id + 1
+  private int idLimit;
   private final ArrayList<V> vertices; // Liste mit allen Knoten
-  private final ArrayList<LinkedList<E>> adjList;
+  private final ArrayList<ArrayList<E>> adjList;
+  // wird bei jeder Aenderung erhoeht, damit Caches veraltete Ergebnisse
+  // erkennen
+  private volatile int version;
+  // kleinstes und groesstes Kantengewicht; gueltig, solange weightVersion
+  // gleich version ist (addEdge fuehrt sie mit, sonst wird neu bestimmt);
+  // ohne Kanten ist minWeight > maxWeight
+  private int minWeight = Integer.MAX_VALUE;
+  private int maxWeight = Integer.MIN_VALUE;
+  private volatile int weightVersion;
 
   // Added for Dijkstra
   // The MultiKeyMap has the Form <int key1, int key2, int weight>
-  private final MultiKeyMap edgeMap = new MultiKeyMap();
+  // optional: null, wenn der Graph ohne edgeMap angelegt wurde
+  private final MultiKeyMap edgeMap;
 
   // Liste mit allen Nachbarlisten zu allen Knoten
   /**
@@ -39,10 +56,25 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
    *          Anzahl der Knoten
    */
   public Graph(int n) {
-    vertexIndex = new HashMap<Integer, Integer>((int) Math.round(Math.ceil(n * 1.25)));
-    // fuer Effizienz: Hashtabelle etwas groesser anlegen als benoetigt
+    this(n, true);
+  }
+
+  /**
+   * Generiert einen leeren Graph, der initial n Knoten enthalten soll
+   * 
+   * @param n
+   *          Anzahl der Knoten
+   * @param withEdgeMap
+   *          false, wenn keine zusaetzliche edgeMap gefuehrt werden soll; die
+   *          Gewichte sind dann nur ueber die Kanten bzw. den
+   *          {@link EdgeCursor} erreichbar, was bei grossen Graphen Speicher
+   *          spart
+   */
+  public Graph(int n, boolean withEdgeMap) {
+    edgeMap = withEdgeMap ? new MultiKeyMap() : null;
+    vertexIndex = new IntIntMap(0);
     vertices = new ArrayList<V>();
-    adjList = new ArrayList<LinkedList<E>>();
+    adjList = new ArrayList<ArrayList<E>>();
   }
 
   /**
@@ -55,29 +87,25 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
    *          die Kantenmenge des Graphen
    */
   public Graph(Collection<V> vertexset, Collection<E> edgeset) {
+    edgeMap = new MultiKeyMap();
     int n = vertexset.size();
-    vertexIndex = new HashMap<Integer, Integer>((int) Math.round(Math.ceil(n * 1.25)));
+    vertexIndex = new IntIntMap(0);
     vertices = new ArrayList<V>(n);
-    adjList = new ArrayList<LinkedList<E>>(n);
+    adjList = new ArrayList<ArrayList<E>>(n);
 
     // Fuer jeden Knoten leere Adjazenzliste anlegen
     for (int i = 0; i < n; i++) {
-      adjList.add(new LinkedList<E>());
+      adjList.add(new ArrayList<E>());
     }
 
     // Fuer jeden Knoten: Knoten in Knotenliste einfuegen;
-    // Index des Knotens in der Knotenliste in die HashMap ablegen
-    int i = 0;
+    // Index des Knotens in der Knotenliste in die Indextabelle ablegen
     for (V v : vertexset) {
-      Integer idx = vertexIndex.put(v.getId(), i); // Knoten f�r
-      // Index-Findung
-      // in Hashmap
-      // einf�gen
-      if (idx != null) {
+      if (indexOf(v.getId()) >= 0) {
         throw new RuntimeException("Doppelte Knoten-ID");
       }
+      putIndex(v.getId(), vertices.size());
       vertices.add(v); // Knoten in Knotenliste einf�gen
-      i++;
     }
 
     // Jede Kante e = (a,b) in die Adjazenzliste des Knoten a einfuegen
@@ -88,17 +116,15 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
       // Added for Dijkstra
       getEdgeMap().put(a.getId(), b.getId(), e.getWeight());
 
-      Integer IIndA = vertexIndex.get(a.getId());
-      if (IIndA == null) {
+      int indA = indexOf(a.getId());
+      if (indA < 0) {
         throw new RuntimeException("Knoten a der Kante ex. nicht");
       }
-      Integer IIndB = vertexIndex.get(b.getId());
-      if (IIndB == null) {
+      if (indexOf(b.getId()) < 0) {
         throw new RuntimeException("Knoten b der Kante ex. nicht");
       }
 
-      int indA = IIndA;
-      LinkedList<E> neighbours = adjList.get(indA);
+      ArrayList<E> neighbours = adjList.get(indA);
       neighbours.add(e);
     }
   }
@@ -109,7 +135,103 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
    * @return die Anzahl der Knoten des Graphen
    */
   public int getNumberVertices() {
-    return vertexIndex.size();
+    return numberVertices;
+  }
+
+  /**
+   * @return die groesste Knoten-Id + 1, die der Graph je enthalten hat; ein
+   *         Array dieser Laenge laesst sich ueber die Knoten-Id indizieren,
+   *         auch bei Luecken in den Ids. Beim Entfernen von Knoten wird der
+   *         Wert nicht kleiner.
+   */
+  public int getIdLimit() {
+    return idLimit;
+  }
+
+  /**
+   * @return ein Stempel, der sich bei jedem erfolgreichen addVertex, addEdge,
+   *         removeVertex, removeEdge und {@link #setWeight} aendert;
+   *         Gewichtsaenderungen direkt ueber {@link Edge#setWeight} erfasst er
+   *         nicht
+   */
+  public int getVersion() {
+    return version;
+  }
+
+  /**
+   * @return das kleinste Kantengewicht oder 0 ohne Kanten; nach addEdge in
+   *         O(1), nach anderen Aenderungen einmal in O(m) neu bestimmt
+   */
+  public int getMinWeight() {
+    updateWeightRange();
+    return minWeight <= maxWeight ? minWeight : 0;
+  }
+
+  /**
+   * @return das groesste Kantengewicht oder 0 ohne Kanten; nach addEdge in
+   *         O(1), nach anderen Aenderungen einmal in O(m) neu bestimmt
+   */
+  public int getMaxWeight() {
+    updateWeightRange();
+    return minWeight <= maxWeight ? maxWeight : 0;
+  }
+
+  private void updateWeightRange() {
+    int current = version;
+    if (weightVersion == current) {
+      return;
+    }
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (ArrayList<E> list : adjList) {
+      for (int i = 0, size = list.size(); i < size; i++) {
+        int w = list.get(i).getWeight();
+        min = Math.min(min, w);
+        max = Math.max(max, w);
+      }
+    }
+    minWeight = min;
+    maxWeight = max;
+    weightVersion = current;
+  }
+
+  /**
+   * @return der Index des Knotens mit ID id in vertices und adjList; -1, falls
+   *         der Knoten nicht existiert
+   */
+  private int indexOf(int id) {
+    if (dense) {
+      return id >= 0 && id < vertices.size() ? id : -1;
+    }
+    return vertexIndex.get(id);
+  }
+
+  /**
+   * Legt den Index eines neuen Knotens ab
+   */
+  private void putIndex(int id, int index) {
+    if (dense && id != index) {
+      useIndexTable();
+    }
+    if (!dense) {
+      vertexIndex.put(id, index);
+    }
+    numberVertices++;
+    idLimit = Math.max(idLimit, id + 1);
+  }
+
+  /**
+   * Verlaesst den dichten Fall: traegt alle vorhandenen Knoten in vertexIndex
+   * ein
+   */
+  private void useIndexTable() {
+    dense = false;
+    for (int i = 0; i < vertices.size(); i++) {
+      V v = vertices.get(i);
+      if (v != null) {
+        vertexIndex.put(v.getId(), i);
+      }
+    }
   }
 
   /**
@@ -120,8 +242,8 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
    * @return Knoten mit dieser ID, falls existiert; null sonst
    */
   public V getVertex(int id) {
-    Integer idx = vertexIndex.get(id);
-    if (idx != null) {
+    int idx = indexOf(id);
+    if (idx >= 0) {
       V v = vertices.get(idx);
       return v;
     } else {
@@ -144,6 +266,48 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
     return vertices;
   }
 
+  /**
+   * Durchlaeuft alle Knoten, ohne sie zu kopieren (im Gegensatz zu
+   * {@link #getVertices()}); der Graph darf waehrenddessen nicht veraendert
+   * werden
+   * 
+   * @return eine Sicht auf die Knoten des Graphen
+   */
+  public Iterable<V> vertices() {
+    return new Iterable<V>() {
+      @Override
+      public Iterator<V> iterator() {
+        return new Iterator<V>() {
+          private int next = skipRemoved(0);
+
+          @Override
+          public boolean hasNext() {
+            return next < vertices.size();
+          }
+
+          @Override
+          public V next() {
+            V v = vertices.get(next);
+            next = skipRemoved(next + 1);
+            return v;
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+    };
+  }
+
+  private int skipRemoved(int index) {
+    while (index < vertices.size() && vertices.get(index) == null) {
+      index++;
+    }
+    return index;
+  }
+
   /**
    * Bestimmt die Menge aller Kanten
    * 
@@ -151,7 +315,7 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
    */
   public Collection<E> getEdges() {
     ArrayList<E> edges = new ArrayList<E>();
-    for (LinkedList<E> nachbarn : adjList) {
+    for (ArrayList<E> nachbarn : adjList) {
       for (E e : nachbarn) {
         edges.add(e);
       }
@@ -181,12 +345,11 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
    */
   public Collection<V> getNeighbours(int id) {
     LinkedList<V> neighbours = new LinkedList<V>();
-    Integer IIndex = vertexIndex.get(id);
-    if (IIndex == null) {
+    int index = indexOf(id);
+    if (index < 0) {
       return null;
     }
-    int index = IIndex;
-    LinkedList<E> neighbourEdges = adjList.get(index);
+    ArrayList<E> neighbourEdges = adjList.get(index);
     for (E e : neighbourEdges) {
       V b = e.getVertexB();
       if (b.getId() == id) {
@@ -201,6 +364,57 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
     return neighbours;
   }
 
+  /**
+   * Uebergibt Endknoten und Gewicht jeder ausgehenden Kante eines Knotens an
+   * einen Empfaenger, ohne Objekte anzulegen (vgl. {@link EdgeCursor})
+   * 
+   * @param id
+   *          ID eines Knotens
+   * @param targetWeight
+   *          erhaelt ID des Endknotens und Gewicht jeder Kante
+   * @return true, falls der Knoten existiert
+   */
+  public boolean forEachNeighbour(int id, IntIntConsumer targetWeight) {
+    int index = indexOf(id);
+    if (index < 0) {
+      return false;
+    }
+    ArrayList<E> edges = adjList.get(index);
+    for (int i = 0, size = edges.size(); i < size; i++) {
+      E e = edges.get(i);
+      int b = e.getVertexB().getId();
+      if (b == id) {
+        // ungerichtete Kante, die nur einmal abgelegt ist (vgl.
+        // getNeighbours)
+        b = e.getVertexA().getId();
+      }
+      targetWeight.accept(b, e.getWeight());
+    }
+    return true;
+  }
+
+  /**
+   * Erzeugt einen Cursor, mit dem die ausgehenden Kanten eines Knotens ohne
+   * Kopieren durchlaufen werden koennen
+   * 
+   * @return ein neuer, wiederverwendbarer Cursor fuer diesen Graph
+   */
+  public EdgeCursor<V, E> edgeCursor() {
+    return new EdgeCursor<V, E>(this);
+  }
+
+  /**
+   * @return die Nachbarliste des Knotens mit ID id (nicht kopiert); null, falls
+   *         der Knoten nicht existiert
+   */
+  ArrayList<E> adjacency(int id) {
+    int idx = indexOf(id);
+    if (idx < 0) {
+      return null;
+    }
+    return adjList.get(idx);
+  }
+
   /**
    * Bestimmt alle mit einem Knoten inzidenten Kanten
    * 
@@ -223,12 +437,12 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
    */
   public Collection<E> getIncidentEdges(int id) {
     ArrayList<E> edges = new ArrayList<E>();
-    Integer IIdx = vertexIndex.get(id);
-    if (IIdx == null) {
+    int idx = indexOf(id);
+    if (idx < 0) {
       return null;
     }
 
-    for (E e : adjList.get(IIdx)) {
+    for (E e : adjList.get(idx)) {
       edges.add(e);
     }
     return edges;
@@ -244,18 +458,18 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
    */
   public boolean addVertex(V v) {
     // Testen, ob Knoten mit derselben id wie v schon vorhanden
-    boolean uniqueId = !vertexIndex.containsKey(v.getId());
+    boolean uniqueId = indexOf(v.getId()) < 0;
     if (!uniqueId) { // Abbruch: Knoten wird nicht eingefuegt
       return false;
     }
+    // Index in Indexliste ablegen
+    putIndex(v.getId(), vertices.size());
     // Knoten in Knotenliste hinzufuegen
     vertices.add(v);
     // Leere Adjazenzliste hinzufuegen
-    adjList.add(new LinkedList<E>());
-    int index = vertices.size() - 1;
-    // Index in Indexliste ablegen
-    vertexIndex.put(v.getId(), index);
+    adjList.add(new ArrayList<E>());
 
+    version++;
     return true;
   }
 
@@ -277,14 +491,40 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
       return false;
     }
     int idA = a.getId();
-    int idB = a.getId();
+    int idB = b.getId();
     /* Ueberpruefen, ob Knoten in Graph */
-    Integer idxA = vertexIndex.get(idA);
-    Integer idxB = vertexIndex.get(idB);
-    if (idxA == null || idxB == null) {
+    int idxA = indexOf(idA);
+    int idxB = indexOf(idB);
+    if (idxA < 0 || idxB < 0) {
       return false;
     }
-    return adjList.get(vertexIndex.get(idA)).add(e);
+    adjList.get(idxA).add(e);
+    boolean rangeValid = weightVersion == version;
+    if (rangeValid) {
+      minWeight = Math.min(minWeight, e.getWeight());
+      maxWeight = Math.max(maxWeight, e.getWeight());
+    }
+    version++;
+    if (rangeValid) {
+      weightVersion = version;
+    }
+    return true;
+  }
+
+  /**
+   * Aendert das Gewicht einer Kante des Graphen; anders als
+   * {@link Edge#setWeight} erhoeht das die Version, so dass Caches und das
+   * groesste Kantengewicht aktualisiert werden
+   *
+   * @return false, wenn der Startknoten der Kante nicht im Graph ist
+   */
+  public boolean setWeight(E e, int weight) {
+    if (indexOf(e.getVertexA().getId()) < 0) {
+      return false;
+    }
+    e.setWeight(weight);
+    version++;
+    return true;
   }
 
   /**
@@ -296,15 +536,14 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
    */
   public boolean removeVertex(V v) {
     // zun�chst alle Kanten mit Knoten v als Startknoten entfernen
-    Integer IIndex = vertexIndex.get(v.getId());
-    if (IIndex == null) {
+    int index = indexOf(v.getId());
+    if (index < 0) {
       return false;
     }
-    int index = IIndex;
     adjList.get(index).clear();
 
     // dann alle Kanten mit Knoten v als Endknoten entfernen
-    for (LinkedList<E> list : adjList) {
+    for (ArrayList<E> list : adjList) {
       ListIterator<E> it = list.listIterator();
       while (it.hasNext()) {
         Edge e = it.next();
@@ -320,8 +559,14 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
     // stimmen.
     vertices.set(index, null);
 
-    // nun Knoten aus Indexliste entfernen
+    // nun Knoten aus Indexliste entfernen; die Id verweist nicht mehr auf
+    // ihren Index, der dichte Fall gilt also nicht mehr
+    if (dense) {
+      useIndexTable();
+    }
     vertexIndex.remove(v.getId());
+    numberVertices--;
+    version++;
     return true;
   }
 
@@ -340,8 +585,8 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
     // Graphen eine Kante {a, b} nur einmal existiert und sowohl in
     // der Nachbarliste von a als auch in der von b abgelegt wurde
     int aId = a.getId();
-    Integer aIdx = vertexIndex.get(aId);
-    if (aIdx == null) {
+    int aIdx = indexOf(aId);
+    if (aIdx < 0) {
       return false; // Knoten konnte nicht gefunden werden
     }
 
@@ -352,6 +597,7 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
       if (le.getVertexB().getId() == b.getId()) {
         // gesuchte Kante gefunden
         it.remove();
+        version++;
         return true;
       }
     }
@@ -360,7 +606,7 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
 
   @Override
   public String toString() {
-    StringBuffer s = new StringBuffer("Graph mit " + vertexIndex.size() + " Knoten\n");
+    StringBuffer s = new StringBuffer("Graph mit " + numberVertices + " Knoten\n");
     int i = 0;
     for (V v : vertices) {
       if (v != null) {
@@ -428,6 +674,7 @@ public class Graph<V extends Vertex, E extends Edge<V>> {
   }
 
   // Added for Dijkstra
+  // null, wenn der Graph ohne edgeMap angelegt wurde
   public MultiKeyMap getEdgeMap() {
     return edgeMap;
   }
@@ -0,0 +1,559 @@
+package graph;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Erzeugt grosse zufaellige Graphen reproduzierbar aus einem Startwert. Die
+ * Kanten werden nie gesammelt, sondern beim Erzeugen sofort weitergegeben;
+ * weil sie aus dem Startwert jederzeit gleich wieder erzeugt werden koennen,
+ * laufen die Ausgaben in zwei Durchgaengen: der erste zaehlt die Kanten je
+ * Knoten, der zweite schreibt. Im Speicher liegen daher nur O(n) Werte (Grade
+ * und ggf. Koordinaten), auch bei zig Millionen Kanten.
+ * <p>
+ * Ausgaben: Textdatei im Format von {@link GraphLesen} (als gerichteter
+ * Graph zu lesen, ungerichtete Familien enthalten jede Kante in beiden
+ * Richtungen), Binaerdatei im Format von {@link BinaryGraphFile} und fuer
+ * ROAD und GEOMETRIC die Koordinaten im Format von
+ * {@link GraphLesen#FileToCoordinates(String)}.
+ */
+public class GraphGenerator {
+
+  /**
+   * Die Graphfamilien
+   */
+  public enum Family {
+    /**
+     * quadratisches Gitter mit 4 Nachbarn, ungerichtet, Gewichte
+     * gleichverteilt 1..100
+     */
+    GRID,
+    /**
+     * Strassennetz: Gitter im Abstand von 100 m mit verschobenen Knoten, 15%
+     * fehlenden Nebenstrassen (30 oder 50 km/h) und Hauptstrassen (90 km/h)
+     * in jeder 8. Zeile und Spalte; ungerichtet, Gewicht = Fahrzeit in
+     * Zehntelsekunden
+     */
+    ROAD,
+    /**
+     * Erdos-Renyi G(n, m) mit m = n * grad gerichteten Kanten zwischen
+     * gleichverteilt zufaelligen Knoten (Mehrfachkanten moeglich); Gewichte
+     * 1..100
+     */
+    ERDOS_RENYI,
+    /**
+     * R-MAT/Kronecker mit den Parametern von Graph500 (0.57, 0.19, 0.19,
+     * 0.05), m = n * grad gerichtete Kanten, Knotennummern verwuerfelt;
+     * wenige Knoten mit sehr hohem Grad; Gewichte 1..100
+     */
+    RMAT,
+    /**
+     * zufaellige Punkte im Einheitsquadrat, verbunden bei Abstand unter einem
+     * Radius fuer mittleren Grad grad; ungerichtet, Gewicht = Abstand * 10000
+     */
+    GEOMETRIC
+  }
+
+  /**
+   * Empfaengt die erzeugten Kanten
+   */
+  public interface EdgeSink {
+    void edge(int a, int b, int w) throws IOException;
+  }
+
+  // Quadrantenwahrscheinlichkeiten von R-MAT als Schwellen fuer 16 Zufallsbits
+  private static final int RMAT_A = (int) (0.57 * 65536);
+  private static final int RMAT_AB = (int) ((0.57 + 0.19) * 65536);
+  private static final int RMAT_ABC = (int) ((0.57 + 0.19 + 0.19) * 65536);
+  private static final int HIGHWAY_SPACING = 8;
+  private static final double BLOCK_LENGTH = 100; // m
+  private static final double HIGHWAY_SPEED = 25; // m/s
+  private static final double[] STREET_SPEEDS = { 30 / 3.6, 50 / 3.6 }; // m/s
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final Family family;
+  private final int n;
+  private final int degree;
+  private final long seed;
+  // nur ROAD und GEOMETRIC; bei jedem Durchgang neu aus dem Startwert erzeugt
+  private double[] x;
+  private double[] y;
+
+  /**
+   * @param family
+   *          die Graphfamilie
+   * @param n
+   *          Anzahl der Knoten (GRID und ROAD runden auf ein Quadrat auf)
+   * @param degree
+   *          mittlerer Grad: ausgehende Kanten je Knoten bei ERDOS_RENYI und
+   *          RMAT, Nachbarn je Knoten bei GEOMETRIC; bei GRID und ROAD ohne
+   *          Bedeutung
+   * @param seed
+   *          Startwert; gleiche Parameter ergeben denselben Graphen
+   */
+  public GraphGenerator(Family family, int n, int degree, long seed) {
+    if (n < 1 || degree < 1) {
+      throw new IllegalArgumentException("Knotenanzahl und Grad muessen positiv sein");
+    }
+    this.family = family;
+    this.degree = degree;
+    this.seed = seed;
+    if (family == Family.GRID || family == Family.ROAD) {
+      int k = (int) Math.ceil(Math.sqrt(n));
+      if ((long) k * k > Integer.MAX_VALUE - 1) {
+        throw new IllegalArgumentException("Zu viele Knoten: " + n);
+      }
+      n = k * k;
+    }
+    this.n = n;
+  }
+
+  public int getNumberVertices() {
+    return n;
+  }
+
+  /**
+   * @return true fuer Familien mit Koordinaten (ROAD, GEOMETRIC)
+   */
+  public boolean hasCoordinates() {
+    return family == Family.ROAD || family == Family.GEOMETRIC;
+  }
+
+  /**
+   * Erzeugt alle Kanten; jeder Aufruf liefert dieselben Kanten in derselben
+   * Reihenfolge
+   */
+  public void generate(EdgeSink sink) throws IOException {
+    Random random = new Random(seed);
+    if (hasCoordinates()) {
+      createCoordinates(random);
+    }
+    switch (family) {
+    case GRID:
+      grid(sink, random);
+      break;
+    case ROAD:
+      road(sink, random);
+      break;
+    case ERDOS_RENYI:
+      erdosRenyi(sink, random);
+      break;
+    case RMAT:
+      rmat(sink, random);
+      break;
+    default:
+      geometric(sink, random);
+    }
+    x = null;
+    y = null;
+  }
+
+  /**
+   * Erzeugt den Graphen im Speicher, z.B. fuer Benchmarks
+   */
+  public CsrGraph toCsrGraph() throws IOException {
+    final int[] offsets = countEdges();
+    final int[] next = new int[n];
+    System.arraycopy(offsets, 0, next, 0, n);
+    final int[] targets = new int[offsets[n]];
+    final int[] weights = new int[offsets[n]];
+    generate(new EdgeSink() {
+      @Override
+      public void edge(int a, int b, int w) {
+        int pos = next[a]++;
+        targets[pos] = b;
+        weights[pos] = w;
+      }
+    });
+    return new CsrGraph(offsets, targets, weights);
+  }
+
+  /**
+   * Schreibt den Graphen als Text- und/oder Binaerdatei
+   *
+   * @param txt
+   *          die Textdatei oder null
+   * @param bin
+   *          die Binaerdatei oder null
+   * @throws IOException
+   *           wenn eine Datei nicht geschrieben werden kann
+   */
+  public void write(String txt, String bin) throws IOException {
+    final int[] offsets = countEdges();
+    final int m = offsets[n];
+    final TextWriter text = txt != null ? new TextWriter(new FileOutputStream(txt)) : null;
+    FileChannel channel = bin != null ? FileChannel.open(Paths.get(bin), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING) : null;
+    try {
+      OffHeapIntArray targets = null;
+      OffHeapIntArray weights = null;
+      if (channel != null) {
+        long position = BinaryGraphFile.HEADER_SIZE;
+        OffHeapIntArray offsetSection = OffHeapIntArray.map(channel, position, n + 1L,
+            FileChannel.MapMode.READ_WRITE);
+        for (int v = 0; v <= n; v++) {
+          offsetSection.set(v, offsets[v]);
+        }
+        position += 4L * (n + 1);
+        targets = OffHeapIntArray.map(channel, position, m, FileChannel.MapMode.READ_WRITE);
+        weights = OffHeapIntArray.map(channel, position + 4L * m, m, FileChannel.MapMode.READ_WRITE);
+      }
+      if (text != null) {
+        text.putInt(n);
+        text.newLine();
+        text.putInt(m);
+        text.newLine();
+      }
+
+      // offsets wird zum Zeiger auf die naechste freie Position je Knoten
+      final OffHeapIntArray targetSection = targets;
+      final OffHeapIntArray weightSection = weights;
+      generate(new EdgeSink() {
+        @Override
+        public void edge(int a, int b, int w) throws IOException {
+          if (text != null) {
+            text.putInt(a);
+            text.put(' ');
+            text.putInt(b);
+            text.put(' ');
+            text.putInt(w);
+            text.newLine();
+          }
+          if (targetSection != null) {
+            int pos = offsets[a]++;
+            targetSection.set(pos, b);
+            weightSection.set(pos, w);
+          }
+        }
+      });
+      if (channel != null) {
+        BinaryGraphFile.writeHeader(channel, 0, n, m);
+      }
+    } finally {
+      if (text != null) {
+        text.close();
+      }
+      if (channel != null) {
+        channel.close();
+      }
+    }
+  }
+
+  /**
+   * Schreibt die Koordinaten der Knoten (nur ROAD und GEOMETRIC)
+   */
+  public void writeCoordinates(String dat) throws IOException {
+    if (!hasCoordinates()) {
+      throw new IllegalStateException(family + " hat keine Koordinaten");
+    }
+    createCoordinates(new Random(seed));
+    TextWriter text = new TextWriter(new FileOutputStream(dat));
+    try {
+      text.putInt(n);
+      text.newLine();
+      for (int v = 0; v < n; v++) {
+        text.putString(x[v] + " " + y[v]);
+        text.newLine();
+      }
+    } finally {
+      text.close();
+      x = null;
+      y = null;
+    }
+  }
+
+  /**
+   * Erster Durchgang: zaehlt die Kanten je Startknoten
+   *
+   * @return die Offsets des CSR-Graphen (Laenge n+1)
+   */
+  private int[] countEdges() throws IOException {
+    final int[] offsets = new int[n + 1];
+    generate(new EdgeSink() {
+      @Override
+      public void edge(int a, int b, int w) {
+        offsets[a + 1]++;
+      }
+    });
+    long sum = 0;
+    for (int v = 0; v < n; v++) {
+      sum += offsets[v + 1];
+      if (sum > Integer.MAX_VALUE) {
+        throw new IllegalStateException("Mehr als " + Integer.MAX_VALUE + " Kanten");
+      }
+      offsets[v + 1] = (int) sum;
+    }
+    return offsets;
+  }
+
+  private void createCoordinates(Random random) {
+    x = new double[n];
+    y = new double[n];
+    if (family == Family.ROAD) {
+      int k = (int) Math.sqrt(n);
+      for (int v = 0; v < n; v++) {
+        x[v] = BLOCK_LENGTH * (v % k + 0.6 * (random.nextDouble() - 0.5));
+        y[v] = BLOCK_LENGTH * (v / k + 0.6 * (random.nextDouble() - 0.5));
+      }
+    } else {
+      for (int v = 0; v < n; v++) {
+        x[v] = random.nextDouble();
+        y[v] = random.nextDouble();
+      }
+    }
+  }
+
+  private void grid(EdgeSink sink, Random random) throws IOException {
+    int k = (int) Math.sqrt(n);
+    for (int r = 0; r < k; r++) {
+      for (int c = 0; c < k; c++) {
+        int v = r * k + c;
+        if (c + 1 < k) {
+          undirected(sink, v, v + 1, 1 + random.nextInt(100));
+        }
+        if (r + 1 < k) {
+          undirected(sink, v, v + k, 1 + random.nextInt(100));
+        }
+      }
+    }
+  }
+
+  private void road(EdgeSink sink, Random random) throws IOException {
+    int k = (int) Math.sqrt(n);
+    for (int r = 0; r < k; r++) {
+      for (int c = 0; c < k; c++) {
+        int v = r * k + c;
+        if (c + 1 < k) {
+          roadEdge(sink, v, v + 1, r % HIGHWAY_SPACING == 0, random);
+        }
+        if (r + 1 < k) {
+          roadEdge(sink, v, v + k, c % HIGHWAY_SPACING == 0, random);
+        }
+      }
+    }
+  }
+
+  private void roadEdge(EdgeSink sink, int a, int b, boolean highway, Random random) throws IOException {
+    // Zufallszahlen immer gleich viele ziehen, damit fehlende Strassen die
+    // folgenden Kanten nicht veraendern
+    boolean missing = random.nextInt(100) < 15;
+    double speed = STREET_SPEEDS[random.nextInt(STREET_SPEEDS.length)];
+    if (highway) {
+      speed = HIGHWAY_SPEED;
+    } else if (missing) {
+      return;
+    }
+    double length = Math.hypot(x[a] - x[b], y[a] - y[b]);
+    undirected(sink, a, b, 1 + (int) Math.round(10 * length / speed));
+  }
+
+  private void erdosRenyi(EdgeSink sink, Random random) throws IOException {
+    long m = (long) n * degree;
+    for (long i = 0; i < m && n > 1;) {
+      int a = random.nextInt(n);
+      int b = random.nextInt(n);
+      if (a != b) {
+        sink.edge(a, b, 1 + random.nextInt(100));
+        i++;
+      }
+    }
+  }
+
+  private void rmat(EdgeSink sink, Random random) throws IOException {
+    int scale = 32 - Integer.numberOfLeadingZeros(Math.max(1, n - 1));
+    int mask = (int) ((1L << scale) - 1);
+    // ungerade Multiplikation ist eine Bijektion modulo 2^scale; sie verteilt
+    // die Knoten mit hohem Grad ueber alle Nummern
+    int multiplier = (int) (seed * 2 + 1) | 1;
+    long m = (long) n * degree;
+    for (long i = 0; i < m && n > 1;) {
+      int a = 0;
+      int b = 0;
+      long bits = 0;
+      for (int bit = scale - 1; bit >= 0; bit--) {
+        // ein nextLong reicht fuer vier Ebenen
+        if ((bit & 3) == 3 || bit == scale - 1) {
+          bits = random.nextLong();
+        }
+        int p = (int) (bits & 0xFFFF);
+        bits >>>= 16;
+        if (p >= RMAT_ABC) {
+          a |= 1 << bit;
+          b |= 1 << bit;
+        } else if (p >= RMAT_AB) {
+          a |= 1 << bit;
+        } else if (p >= RMAT_A) {
+          b |= 1 << bit;
+        }
+      }
+      a = (a * multiplier) & mask;
+      b = (b * multiplier) & mask;
+      if (a < n && b < n && a != b) {
+        sink.edge(a, b, 1 + random.nextInt(100));
+        i++;
+      }
+    }
+  }
+
+  private void geometric(EdgeSink sink, Random random) throws IOException {
+    double radius = Math.sqrt(degree / (Math.PI * n));
+    // Punkte in Zellen der Kantenlaenge radius einsortieren, damit nur
+    // benachbarte Zellen verglichen werden muessen
+    int cells = (int) Math.max(1, Math.min(1 / radius, Math.sqrt(n)));
+    int[] cellStart = new int[cells * cells + 1];
+    int[] cell = new int[n];
+    for (int v = 0; v < n; v++) {
+      cell[v] = Math.min(cells - 1, (int) (y[v] * cells)) * cells + Math.min(cells - 1, (int) (x[v] * cells));
+      cellStart[cell[v] + 1]++;
+    }
+    for (int c = 0; c < cells * cells; c++) {
+      cellStart[c + 1] += cellStart[c];
+    }
+    int[] byCell = new int[n];
+    int[] next = new int[cells * cells];
+    System.arraycopy(cellStart, 0, next, 0, next.length);
+    for (int v = 0; v < n; v++) {
+      byCell[next[cell[v]]++] = v;
+    }
+    // Zelle fuer Zelle, damit die verglichenen Punkte nahe beieinander liegen
+    double radius2 = radius * radius;
+    for (int j = 0; j < n; j++) {
+      int v = byCell[j];
+      int cx = cell[v] % cells;
+      int cy = cell[v] / cells;
+      for (int dy = -1; dy <= 1; dy++) {
+        for (int dx = -1; dx <= 1; dx++) {
+          if (cx + dx < 0 || cx + dx >= cells || cy + dy < 0 || cy + dy >= cells) {
+            continue;
+          }
+          int c = (cy + dy) * cells + cx + dx;
+          for (int i = cellStart[c]; i < cellStart[c + 1]; i++) {
+            int u = byCell[i];
+            double ddx = x[v] - x[u];
+            double ddy = y[v] - y[u];
+            double d2 = ddx * ddx + ddy * ddy;
+            // beide Richtungen, wenn v und u ihre Nachbarn durchsuchen
+            if (d2 <= radius2 && u != v) {
+              sink.edge(v, u, 1 + (int) Math.round(Math.sqrt(d2) * 10000));
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static void undirected(EdgeSink sink, int a, int b, int w) throws IOException {
+    sink.edge(a, b, w);
+    sink.edge(b, a, w);
+  }
+
+  /**
+   * Erzeugt einen Graphen und schreibt ihn in Dateien
+   *
+   * @param args
+   *          familie=GRID|ROAD|ERDOS_RENYI|RMAT|GEOMETRIC n=... [grad=8]
+   *          [seed=1] [text=graph.txt] [binaer=graph.bin]
+   *          [koordinaten=coords.txt]
+   */
+  public static void main(String[] args) throws IOException {
+    Family family = null;
+    int n = 0;
+    int degree = 8;
+    long seed = 1;
+    String txt = null;
+    String bin = null;
+    String coordinates = null;
+    for (String arg : args) {
+      int eq = arg.indexOf('=');
+      String key = eq < 0 ? arg : arg.substring(0, eq);
+      String value = arg.substring(eq + 1);
+      if (key.equals("familie")) {
+        family = Family.valueOf(value);
+      } else if (key.equals("n")) {
+        n = Integer.parseInt(value);
+      } else if (key.equals("grad")) {
+        degree = Integer.parseInt(value);
+      } else if (key.equals("seed")) {
+        seed = Long.parseLong(value);
+      } else if (key.equals("text")) {
+        txt = value;
+      } else if (key.equals("binaer")) {
+        bin = value;
+      } else if (key.equals("koordinaten")) {
+        coordinates = value;
+      } else {
+        throw new IllegalArgumentException("Unbekannter Parameter: " + key);
+      }
+    }
+    if (family == null || n < 1 || txt == null && bin == null && coordinates == null) {
+      System.out.println("Aufruf: GraphGenerator familie=GRID|ROAD|ERDOS_RENYI|RMAT|GEOMETRIC n=<Knoten>"
+          + " [grad=8] [seed=1] [text=graph.txt] [binaer=graph.bin] [koordinaten=coords.txt]");
+      return;
+    }
+    GraphGenerator generator = new GraphGenerator(family, n, degree, seed);
+    if (txt != null || bin != null) {
+      generator.write(txt, bin);
+    }
+    if (coordinates != null) {
+      generator.writeCoordinates(coordinates);
+    }
+  }
+
+  /**
+   * Schreibt ASCII-Text gepuffert, ohne fuer jede Zahl einen String
+   * anzulegen
+   */
+  private static class TextWriter {
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[] digits = new byte[10];
+    private int pos;
+
+    TextWriter(OutputStream out) {
+      this.out = out;
+    }
+
+    void putInt(int value) throws IOException {
+      if (value < 0) {
+        put('-');
+        value = -value;
+      }
+      int count = 0;
+      do {
+        digits[count++] = (byte) ('0' + value % 10);
+        value /= 10;
+      } while (value != 0);
+      while (count > 0) {
+        put((char) digits[--count]);
+      }
+    }
+
+    void putString(String s) throws IOException {
+      for (int i = 0; i < s.length(); i++) {
+        put(s.charAt(i));
+      }
+    }
+
+    void newLine() throws IOException {
+      put('\n');
+    }
+
+    void put(char c) throws IOException {
+      if (pos == buffer.length) {
+        out.write(buffer, 0, pos);
+        pos = 0;
+      }
+      buffer[pos++] = (byte) c;
+    }
+
+    void close() throws IOException {
+      out.write(buffer, 0, pos);
+      out.close();
+    }
+  }
+}
@@ -2,6 +2,7 @@ package graph;
 
 import java.io.BufferedReader;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
 
 /**
@@ -26,7 +27,7 @@ public class GraphLesen {
    *         Kantenanzahl m (Index 1) Komponenten 1 .. m enthalten die Kanten
    *         {u, v} bzw. bei gerichteten Graphen (u,v) Knoten u ist dabei in
    *         Komponente mit Index 0, Knoten v in Komponente mit Index 1
-   *         abgelegt.
+   *         abgelegt; null, wenn die Datei nicht gelesen werden konnte
    */
   private static int[][] FileToGraphArray(String dat) {
     int[][] A = null;
@@ -64,7 +65,7 @@ public class GraphLesen {
         int v = new Integer(vStr);
         int u = new Integer(uStr);
         if (!(u >= 0 && u < n && v >= 0 && v < n)) {
-          throw new Exception("Falsche Knotennummer");
+          throw new Exception("Falsche Knotennummer in Zeile " + (i + 2));
         }
         A[i][0] = v;
         A[i][1] = u;
@@ -73,6 +74,8 @@ public class GraphLesen {
       e.printStackTrace();
       System.out.println("Einlesen nicht erfolgreich");
       System.out.println(e.getMessage());
+      // kein halb gefuelltes Array zurueckgeben
+      A = null;
     }
 
     return A;
@@ -95,7 +98,7 @@ public class GraphLesen {
    *         {u, v} bzw. bei gerichteten Graphen (u,v) mit ihrem Kantengewicht;
    *         Knoten u ist dabei in Komponente mit Index 0, Knoten v in
    *         Komponente mit Index 1, das Kantengewicht in Komponente mit Index 2
-   *         abgelegt.
+   *         abgelegt; null, wenn die Datei nicht gelesen werden konnte
    */
   private static int[][] FileToWeightedGraphArray(String dat) {
     int[][] A = null;
@@ -136,7 +139,7 @@ public class GraphLesen {
         int u = new Integer(uStr);
         int w = new Integer(wStr);
         if (!(u >= 0 && u < n && v >= 0 && v < n)) {
-          throw new Exception("Falsche Knotennummer");
+          throw new Exception("Falsche Knotennummer in Zeile " + (i + 2));
         }
         A[i][0] = v;
         A[i][1] = u;
@@ -146,6 +149,8 @@ public class GraphLesen {
       e.printStackTrace();
       System.out.println("Einlesen nicht erfolgreich");
       System.out.println(e.getMessage());
+      // kein halb gefuelltes Array zurueckgeben
+      A = null;
     }
 
     return A;
@@ -166,10 +171,14 @@ public class GraphLesen {
    *          Nachbarliste abgelegt; false, wenn Graph ungerichtet sein soll;
    *          dann wird jede in dat angegebene Kante {a,b} durch zwei gerichtete
    *          Kanten (a,b) und (b,a) dargestellt
-   * @return der Graph mit Standardgewicht 1 f�r die Kanten
+   * @return der Graph mit Standardgewicht 1 f�r die Kanten; null, wenn die
+   *         Datei nicht gelesen werden konnte
    */
   public static Graph<Vertex, Edge<Vertex>> FileToGraph(String dat, boolean directed) {
     int[][] GArray = FileToGraphArray(dat);
+    if (GArray == null) {
+      return null;
+    }
     int n = GArray[0][0];
     int m = GArray[0][1];
     Graph<Vertex, Edge<Vertex>> G = new Graph(n);
@@ -211,10 +220,29 @@ public class GraphLesen {
    * @return der Graph mit Standardgewicht 1 f�r die Kanten
    */
   public static Graph<Vertex, Edge<Vertex>> FileToWeightedGraph(String dat, boolean directed) {
+    return FileToWeightedGraph(dat, directed, true);
+  }
+
+  /**
+   * Erzeugt einen gewichteten Graph aus Werten die in einer Datei abgelegt sind
+   * 
+   * @param dat
+   *          eine Datei im Format von {@link #FileToWeightedGraph(String, boolean)}
+   * @param directed
+   *          true, wenn Graph gerichtet sein soll
+   * @param withEdgeMap
+   *          false, wenn die Gewichte nicht zusaetzlich in der edgeMap des
+   *          Graphen abgelegt werden sollen
+   * @return der Graph; null, wenn die Datei nicht gelesen werden konnte
+   */
+  public static Graph<Vertex, Edge<Vertex>> FileToWeightedGraph(String dat, boolean directed, boolean withEdgeMap) {
     int[][] GArray = FileToWeightedGraphArray(dat);
+    if (GArray == null) {
+      return null;
+    }
     int n = GArray[0][0];
     int m = GArray[0][1];
-    Graph<Vertex, Edge<Vertex>> G = new Graph(n);
+    Graph<Vertex, Edge<Vertex>> G = new Graph<Vertex, Edge<Vertex>>(n, withEdgeMap);
 
     // Knoten hinzufuegen
     for (int i = 0; i < n; i++) {
@@ -228,7 +256,9 @@ public class GraphLesen {
       int w = GArray[i][2];
 
       // Added for Dijkstra
-      G.getEdgeMap().put(idxa, idxb, w);
+      if (withEdgeMap) {
+        G.getEdgeMap().put(idxa, idxb, w);
+      }
 
       Vertex a = G.getVertex(idxa);
       Vertex b = G.getVertex(idxb);
@@ -239,4 +269,59 @@ public class GraphLesen {
     }
     return G;
   }
+
+  /**
+   * Erzeugt direkt einen eingefrorenen CSR-Graph aus Werten die in einer Datei
+   * abgelegt sind, ohne Knoten- und Kantenobjekte anzulegen; die Datei wird
+   * mit dem {@link MappedGraphReader} eingeblendet
+   * 
+   * @param dat
+   *          eine Datei im Format von {@link #FileToWeightedGraph(String, boolean)}
+   * @param directed
+   *          true, wenn Graph gerichtet sein soll; false, wenn jede Kante {a,b}
+   *          durch (a,b) und (b,a) dargestellt werden soll
+   * @return der CSR-Graph; null, wenn die Datei nicht gelesen werden konnte
+   */
+  public static CsrGraph FileToCsrGraph(String dat, boolean directed) {
+    try {
+      return MappedGraphReader.readCsrGraph(dat, directed);
+    } catch (IOException e) {
+      System.out.println("Einlesen aus " + dat + " nicht erfolgreich");
+      System.out.println(e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Liest die Koordinaten der Knoten aus einer Datei
+   * 
+   * @param dat
+   *          eine Datei in folgendem Format: 1. Zeile: Anzahl der Knoten (n) 2.
+   *          Zeile - (n+1)-te Zeile: x- und y-Koordinate des Knotens 0 .. n-1
+   *          durch ein Leerzeichen getrennt
+   * @return die Koordinaten; null, wenn die Datei nicht gelesen werden konnte
+   */
+  public static Coordinates FileToCoordinates(String dat) {
+    try {
+      BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(dat)));
+      try {
+        int n = Integer.parseInt(br.readLine().trim());
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+          String einZeile = br.readLine().trim();
+          int sepIndex = einZeile.indexOf(' ');
+          x[i] = Double.parseDouble(einZeile.substring(0, sepIndex));
+          y[i] = Double.parseDouble(einZeile.substring(sepIndex + 1).trim());
+        }
+        return new Coordinates(x, y);
+      } finally {
+        br.close();
+      }
+    } catch (Exception e) {
+      System.out.println("Einlesen der Koordinaten aus " + dat + " nicht erfolgreich");
+      System.out.println(e.getMessage());
+      return null;
+    }
+  }
 }
@@ -0,0 +1,66 @@
+package graph;
+
+/**
+ * Sicht auf einen unveraenderlichen, gewichteten Graphen, dessen Knoten von 0
+ * bis n-1 und dessen Kanten von 0 bis m-1 durchnummeriert sind. Die von einem
+ * Knoten v ausgehenden Kanten sind genau die Kanten firstEdge(v) bis
+ * endEdge(v)-1, so dass Nachbarn ohne Objekte und ohne Hashing ueber einen
+ * Indexbereich durchlaufen werden koennen:
+ * 
+ * <pre>
+ * for (int e = g.firstEdge(v), end = g.endEdge(v); e &lt; end; e++) {
+ *   int w = g.getTarget(e);
+ *   int weight = g.getWeight(e);
+ * }
+ * </pre>
+ */
+public interface IndexedGraph {
+
+  /**
+   * @return die Anzahl der Knoten n
+   */
+  int getNumberVertices();
+
+  /**
+   * @return die Anzahl der (gerichteten) Kanten m
+   */
+  int getNumberEdges();
+
+  /**
+   * @param v
+   *          ein Knoten 0 .. n-1
+   * @return Index der ersten von v ausgehenden Kante
+   */
+  int firstEdge(int v);
+
+  /**
+   * @param v
+   *          ein Knoten 0 .. n-1
+   * @return Index hinter der letzten von v ausgehenden Kante
+   */
+  int endEdge(int v);
+
+  /**
+   * @param e
+   *          ein Kantenindex 0 .. m-1
+   * @return der Endknoten der Kante
+   */
+  int getTarget(int e);
+
+  /**
+   * @param e
+   *          ein Kantenindex 0 .. m-1
+   * @return das Gewicht der Kante
+   */
+  int getWeight(int e);
+
+  /**
+   * @return das kleinste Kantengewicht oder 0, wenn der Graph keine Kanten hat
+   */
+  int getMinWeight();
+
+  /**
+   * @return das groesste Kantengewicht oder 0, wenn der Graph keine Kanten hat
+   */
+  int getMaxWeight();
+}
@@ -0,0 +1,16 @@
+package graph;
+
+/**
+ * Empfaengt zwei int-Werte ohne Autoboxing, z.B. Endknoten und Gewicht einer
+ * Kante (siehe {@link Graph#forEachNeighbour})
+ */
+public interface IntIntConsumer {
+
+  /**
+   * @param first
+   *          der erste Wert, bei Kanten die ID des Endknotens
+   * @param second
+   *          der zweite Wert, bei Kanten das Gewicht
+   */
+  void accept(int first, int second);
+}
@@ -0,0 +1,159 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Eine Hashtabelle int -&gt; int mit offener Adressierung (lineares Sondieren).
+ * Schluessel und Werte liegen in zwei int-Arrays; es gibt also weder
+ * Autoboxing noch Entry-Objekte, und eine Suche ist meist ein einziger
+ * Arrayzugriff. Entfernen verschiebt die nachfolgenden Eintraege zurueck, so
+ * dass keine Grabsteine entstehen.
+ */
+public class IntIntMap {
+
+  /** Rueckgabewert von {@link #get} und {@link #put} fuer fehlende Schluessel */
+  public static final int NO_VALUE = -1;
+
+  // markiert freie Plaetze; der Schluessel selbst wird gesondert gespeichert
+  private static final int FREE = Integer.MIN_VALUE;
+
+  private int[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+  // Eintrag fuer den Schluessel FREE
+  private boolean hasFreeKey;
+  private int freeValue;
+
+  /**
+   * @param expectedSize
+   *          erwartete Anzahl der Eintraege
+   */
+  public IntIntMap(int expectedSize) {
+    // Fuellgrad hoechstens 1/2
+    int capacity = Integer.highestOneBit(Math.max(4, 2 * expectedSize - 1)) << 1;
+    allocate(capacity);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean containsKey(int key) {
+    return key == FREE ? hasFreeKey : keys[slot(key)] != FREE;
+  }
+
+  /**
+   * @return der Wert zum Schluessel oder {@link #NO_VALUE}
+   */
+  public int get(int key) {
+    if (key == FREE) {
+      return hasFreeKey ? freeValue : NO_VALUE;
+    }
+    int i = slot(key);
+    return keys[i] == FREE ? NO_VALUE : values[i];
+  }
+
+  /**
+   * @return der bisherige Wert zum Schluessel oder {@link #NO_VALUE}
+   */
+  public int put(int key, int value) {
+    if (key == FREE) {
+      int old = hasFreeKey ? freeValue : NO_VALUE;
+      if (!hasFreeKey) {
+        hasFreeKey = true;
+        size++;
+      }
+      freeValue = value;
+      return old;
+    }
+    int i = slot(key);
+    if (keys[i] != FREE) {
+      int old = values[i];
+      values[i] = value;
+      return old;
+    }
+    keys[i] = key;
+    values[i] = value;
+    if (++size > keys.length / 2) {
+      rehash(keys.length * 2);
+    }
+    return NO_VALUE;
+  }
+
+  /**
+   * @return der entfernte Wert oder {@link #NO_VALUE}
+   */
+  public int remove(int key) {
+    if (key == FREE) {
+      if (!hasFreeKey) {
+        return NO_VALUE;
+      }
+      hasFreeKey = false;
+      size--;
+      return freeValue;
+    }
+    int i = slot(key);
+    if (keys[i] == FREE) {
+      return NO_VALUE;
+    }
+    int old = values[i];
+    size--;
+    // nachfolgende Eintraege derselben Kette in die Luecke schieben
+    int gap = i;
+    for (int j = (i + 1) & mask; keys[j] != FREE; j = (j + 1) & mask) {
+      int home = hash(keys[j]);
+      // j darf nach gap, wenn home nicht zyklisch in (gap, j] liegt
+      if (((j - home) & mask) >= ((j - gap) & mask)) {
+        keys[gap] = keys[j];
+        values[gap] = values[j];
+        gap = j;
+      }
+    }
+    keys[gap] = FREE;
+    return old;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, FREE);
+    size = 0;
+    hasFreeKey = false;
+  }
+
+  /**
+   * @return der Platz des Schluessels oder der freie Platz, an den er gehoert
+   */
+  private int slot(int key) {
+    int i = hash(key);
+    while (keys[i] != FREE && keys[i] != key) {
+      i = (i + 1) & mask;
+    }
+    return i;
+  }
+
+  private int hash(int key) {
+    // Fibonacci-Hashing; aufeinanderfolgende Ids verteilen sich gleichmaessig
+    int h = key * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = new int[capacity];
+    Arrays.fill(keys, FREE);
+    mask = capacity - 1;
+  }
+
+  private void rehash(int capacity) {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != FREE) {
+        int j = slot(oldKeys[i]);
+        keys[j] = oldKeys[i];
+        values[j] = oldValues[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package graph;
+
+/**
+ * Ein CSR-Graph, dessen Arrays direkt in einer mit {@link BinaryGraphFile}
+ * geschriebenen Datei liegen. Es wird nichts kopiert: das Oeffnen kostet nur
+ * das Einblenden, die Seiten werden erst beim Zugriff gelesen und liegen im
+ * Page Cache des Betriebssystems, den sich alle Prozesse teilen, die dieselbe
+ * Datei oeffnen.
+ */
+public class MappedCsrGraph implements IndexedGraph {
+  private final int n;
+  private final int m;
+  private final OffHeapIntArray offsets; // Laenge n+1
+  private final OffHeapIntArray targets; // Laenge m
+  private final OffHeapIntArray weights; // Laenge m
+  private final MappedCsrGraph reverse;
+  // {kleinstes, groesstes} Gewicht; erst beim ersten Zugriff bestimmt, damit
+  // das Oeffnen nicht alle Seiten der Gewichte liest
+  private volatile int[] weightRange;
+
+  MappedCsrGraph(int n, int m, OffHeapIntArray offsets, OffHeapIntArray targets, OffHeapIntArray weights,
+      MappedCsrGraph reverse) {
+    this.n = n;
+    this.m = m;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.weights = weights;
+    this.reverse = reverse;
+  }
+
+  /**
+   * @return der umgekehrte Graph aus der Datei (siehe
+   *         {@link CsrGraph#transpose}) oder null, wenn die Datei keinen
+   *         enthaelt
+   */
+  public MappedCsrGraph getReverse() {
+    return reverse;
+  }
+
+  @Override
+  public int getNumberVertices() {
+    return n;
+  }
+
+  @Override
+  public int getNumberEdges() {
+    return m;
+  }
+
+  @Override
+  public int firstEdge(int v) {
+    return offsets.get(v);
+  }
+
+  @Override
+  public int endEdge(int v) {
+    return offsets.get(v + 1);
+  }
+
+  @Override
+  public int getTarget(int e) {
+    return targets.get(e);
+  }
+
+  @Override
+  public int getWeight(int e) {
+    return weights.get(e);
+  }
+
+  @Override
+  public int getMinWeight() {
+    return weightRange()[0];
+  }
+
+  @Override
+  public int getMaxWeight() {
+    return weightRange()[1];
+  }
+
+  private int[] weightRange() {
+    int[] range = weightRange;
+    if (range == null) {
+      range = CsrGraph.weightRange(this);
+      weightRange = range;
+    }
+    return range;
+  }
+}
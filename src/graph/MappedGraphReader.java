@@ -0,0 +1,650 @@
+package graph;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Liest Graphen im Textformat von {@link GraphLesen} (1. Zeile n, 2. Zeile m,
+ * dann m Zeilen "a b gewicht") direkt in einen {@link CsrGraph}. Die Datei wird
+ * mit {@link FileChannel#map} in den Speicher eingeblendet und die Zahlen
+ * werden Byte fuer Byte aus dem {@link MappedByteBuffer} gelesen; es entstehen
+ * also keine Strings, keine Integer-Objekte und kein int[m+1][3]-Zwischenarray.
+ * <p>
+ * Der Kantenteil der Datei wird an Zeilenenden in Abschnitte zerlegt, die
+ * parallel in eigene Kantenpuffer gelesen werden. Jeder Abschnitt sortiert
+ * seine Kanten danach stabil nach dem Knotenbereich ihres Startknotens
+ * (Counting Sort). Dann werden die Knotengrade gezaehlt, die CSR-Offsets mit
+ * einer parallelen Praefixsumme berechnet und die Kanten parallel
+ * einsortiert. Beim Zaehlen und Einsortieren ist jede Aufgabe fuer einen
+ * Knotenbereich zustaendig und liest nur dessen Teil der Kantenpuffer, die
+ * Abschnitte nacheinander; so braucht es keine Synchronisation, jede Kante
+ * wird nur einmal angefasst, und die Kanten jedes Knotens stehen wie beim
+ * sequentiellen Lesen in der Reihenfolge der Datei.
+ * <p>
+ * Formatfehler und Knotennummern ausserhalb von 0 .. n-1 werden als
+ * {@link IOException} mit der Zeilennummer gemeldet, bei mehreren Fehlern der
+ * erste in der Datei. Zeilen nach der m-ten Kante werden ignoriert.
+ */
+public class MappedGraphReader {
+
+  /**
+   * Groesse eines eingeblendeten Abschnitts in Byte hoechstens (ein
+   * MappedByteBuffer fasst hoechstens 2 GB)
+   */
+  public static final int WINDOW_SIZE = 1 << 30;
+
+  // kleinere Abschnitte lohnen den Aufwand nicht
+  private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+  // mehr Abschnitte als Worker, damit sich ungleich schnelle Abschnitte
+  // ausgleichen
+  private static final int CHUNKS_PER_WORKER = 4;
+
+  // Knotenbereiche je Worker beim Zaehlen und Einsortieren
+  private static final int RANGES_PER_WORKER = 2;
+
+  // so viele Knoten bearbeitet eine Aufgabe bei der Praefixsumme
+  private static final int VERTEX_BLOCK = 1 << 16;
+
+  private final FileChannel channel;
+  private final long fileSize;
+  // null: alles im aufrufenden Thread
+  private final ExecutorService executor;
+  private final int workers;
+
+  private MappedGraphReader(FileChannel channel, ExecutorService executor, int workers) throws IOException {
+    this.channel = channel;
+    this.executor = executor;
+    this.workers = workers;
+    fileSize = channel.size();
+  }
+
+  /**
+   * Liest einen gewichteten Graph als CSR-Graph im aufrufenden Thread
+   *
+   * @param dat
+   *          eine Datei im Format von
+   *          {@link GraphLesen#FileToWeightedGraph(String, boolean)}
+   * @param directed
+   *          true, wenn Graph gerichtet sein soll; false, wenn jede Kante {a,b}
+   *          durch (a,b) und (b,a) dargestellt werden soll
+   * @return der CSR-Graph
+   * @throws IOException
+   *           wenn die Datei nicht gelesen werden kann oder nicht dem Format
+   *           entspricht
+   */
+  public static CsrGraph readCsrGraph(String dat, boolean directed) throws IOException {
+    try {
+      return readCsrGraph(dat, directed, null, 1);
+    } catch (InterruptedException e) {
+      // ohne Executor wird nie gewartet
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Liest einen gewichteten Graph als CSR-Graph mit mehreren Workern
+   *
+   * @param dat
+   *          eine Datei im Format von
+   *          {@link GraphLesen#FileToWeightedGraph(String, boolean)}
+   * @param directed
+   *          true, wenn Graph gerichtet sein soll; false, wenn jede Kante {a,b}
+   *          durch (a,b) und (b,a) dargestellt werden soll
+   * @param executor
+   *          der Executor fuer die Worker oder null
+   * @param workers
+   *          Anzahl der Worker (in der Regel die Anzahl der Threads des
+   *          Executors)
+   * @return der CSR-Graph
+   * @throws IOException
+   *           wenn die Datei nicht gelesen werden kann oder nicht dem Format
+   *           entspricht
+   * @throws InterruptedException
+   *           wenn der Thread beim Warten unterbrochen wird
+   */
+  public static CsrGraph readCsrGraph(String dat, boolean directed, ExecutorService executor, int workers)
+      throws IOException, InterruptedException {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Es wird mindestens ein Worker benoetigt");
+    }
+    FileChannel channel = FileChannel.open(Paths.get(dat), StandardOpenOption.READ);
+    try {
+      return new MappedGraphReader(channel, executor, workers).read(directed);
+    } finally {
+      // die Einblendungen bleiben bis zur Garbage Collection der Puffer gueltig
+      channel.close();
+    }
+  }
+
+  /**
+   * Liest einen gewichteten Graph als {@link OffHeapCsrGraph}; die Kanten
+   * werden ohne Zwischenarrays auf dem Heap direkt in Direct Buffers gelesen
+   *
+   * @param dat
+   *          eine Datei im Format von
+   *          {@link GraphLesen#FileToWeightedGraph(String, boolean)}
+   * @param directed
+   *          true, wenn Graph gerichtet sein soll; false, wenn jede Kante {a,b}
+   *          durch (a,b) und (b,a) dargestellt werden soll
+   * @return der Graph ausserhalb des Heaps
+   * @throws IOException
+   *           wenn die Datei nicht gelesen werden kann oder nicht dem Format
+   *           entspricht
+   */
+  public static OffHeapCsrGraph readOffHeapGraph(String dat, boolean directed) throws IOException {
+    FileChannel channel = FileChannel.open(Paths.get(dat), StandardOpenOption.READ);
+    try {
+      return new MappedGraphReader(channel, null, 1).readOffHeap(directed);
+    } finally {
+      channel.close();
+    }
+  }
+
+  private OffHeapCsrGraph readOffHeap(boolean directed) throws IOException {
+    LineParser header = new LineParser(map(0, Math.min(WINDOW_SIZE, fileSize)));
+    int n = readHeader(header, 1, "Knotenanzahl");
+    int m = readHeader(header, 2, "Kantenanzahl");
+    long size = directed ? m : 2L * m;
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Zu viele Kanten: " + size);
+    }
+    OffHeapCsrGraph.Builder builder = new OffHeapCsrGraph.Builder(n, (int) size);
+    long line = 2;
+    int edges = 0;
+    for (Chunk chunk : split(header.position(), 0)) {
+      LineParser parser = new LineParser(chunk.buffer);
+      int[] values = parser.values;
+      while (edges < m) {
+        int fields;
+        try {
+          fields = parser.parseEdgeLine(n);
+        } catch (FormatException e) {
+          throw new IOException("Zeile " + (line + 1) + ": " + e.getMessage());
+        }
+        if (fields == -1) {
+          break;
+        }
+        line++;
+        if (fields == 3) {
+          builder.addEdge(values[0], values[1], values[2]);
+          if (!directed) {
+            builder.addEdge(values[1], values[0], values[2]);
+          }
+          edges++;
+        }
+      }
+    }
+    if (edges < m) {
+      throw new IOException("Zeile " + line + ": Dateiende nach " + edges + " von " + m + " Kanten");
+    }
+    return builder.build();
+  }
+
+  private CsrGraph read(final boolean directed) throws IOException, InterruptedException {
+    // Kopfzeilen
+    LineParser header = new LineParser(map(0, Math.min(WINDOW_SIZE, fileSize)));
+    final int n = readHeader(header, 1, "Knotenanzahl");
+    final int m = readHeader(header, 2, "Kantenanzahl");
+    long size = directed ? m : 2L * m;
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Zu viele Kanten: " + size);
+    }
+
+    // Kantenzeilen parallel lesen
+    final List<Chunk> chunks = split(header.position(), m);
+    run(chunks.size(), new Task() {
+      @Override
+      public void run(int index) {
+        chunks.get(index).parse(n);
+      }
+    });
+    checkChunks(chunks, m);
+
+    // Kanten jedes Abschnitts nach Knotenbereichen sortieren
+    final int ranges = executor == null ? 1 : Math.max(1, Math.min(n, workers * RANGES_PER_WORKER));
+    run(chunks.size(), new Task() {
+      @Override
+      public void run(int index) {
+        chunks.get(index).sortByRange(n, ranges, directed);
+      }
+    });
+
+    // Knotengrade zaehlen
+    final int[] cursor = new int[n];
+    run(ranges, new Task() {
+      @Override
+      public void run(int index) {
+        for (Chunk c : chunks) {
+          int[] from = c.from;
+          for (int i = c.rangeStart[index], end = c.rangeStart[index + 1]; i < end; i++) {
+            cursor[from[i]]++;
+          }
+        }
+      }
+    });
+
+    // Offsets per Praefixsumme; cursor wird zur naechsten freien Position
+    final int[] offsets = prefixSum(cursor);
+
+    // Kanten einsortieren
+    final int[] targets = new int[offsets[n]];
+    final int[] weights = new int[offsets[n]];
+    run(ranges, new Task() {
+      @Override
+      public void run(int index) {
+        for (Chunk c : chunks) {
+          int[] from = c.from;
+          int[] to = c.to;
+          int[] weight = c.weight;
+          for (int i = c.rangeStart[index], end = c.rangeStart[index + 1]; i < end; i++) {
+            int pos = cursor[from[i]]++;
+            targets[pos] = to[i];
+            weights[pos] = weight[i];
+          }
+        }
+      }
+    });
+    return new CsrGraph(offsets, targets, weights);
+  }
+
+  /**
+   * Liest eine Kopfzeile mit genau einer nicht-negativen Zahl
+   */
+  private static int readHeader(LineParser parser, int line, String name) throws IOException {
+    int count;
+    try {
+      count = parser.parseLine();
+    } catch (FormatException e) {
+      throw new IOException("Zeile " + line + ": " + e.getMessage());
+    }
+    if (count != 1 || parser.values[0] < 0) {
+      throw new IOException("Zeile " + line + ": " + name + " erwartet");
+    }
+    return parser.values[0];
+  }
+
+  /**
+   * Zerlegt die Datei ab start in Abschnitte, die jeweils direkt nach einem
+   * Zeilenende beginnen
+   */
+  private List<Chunk> split(long start, int m) throws IOException {
+    long length = fileSize - start;
+    long count = Math.min((long) workers * CHUNKS_PER_WORKER, length / MIN_CHUNK_SIZE);
+    count = Math.max(count, (length + WINDOW_SIZE / 2 - 1) / (WINDOW_SIZE / 2));
+    count = Math.max(1, count);
+    List<Chunk> chunks = new ArrayList<Chunk>((int) count);
+    long first = start;
+    for (long i = 1; i <= count; i++) {
+      long end = i == count ? fileSize : Math.max(first, lineStart(start + length * i / count));
+      // Kantenpuffer nach dem Anteil an der Datei vorbelegen
+      int expected = length == 0 ? 0 : (int) ((double) m * (end - first) / length);
+      chunks.add(new Chunk(map(first, end - first), expected + 16));
+      first = end;
+    }
+    return chunks;
+  }
+
+  /**
+   * @return die Position direkt nach dem ersten Zeilenende ab pos - 1
+   */
+  private long lineStart(long pos) throws IOException {
+    long p = pos - 1;
+    while (p < fileSize) {
+      MappedByteBuffer buffer = map(p, Math.min(1 << 16, fileSize - p));
+      for (int i = 0; i < buffer.limit(); i++) {
+        if (buffer.get(i) == '\n') {
+          return p + i + 1;
+        }
+      }
+      p += buffer.limit();
+    }
+    return fileSize;
+  }
+
+  /**
+   * Meldet den ersten Fehler in der Datei und legt fest, wie viele Kanten
+   * jedes Abschnitts zu den ersten m Kanten gehoeren
+   */
+  private static void checkChunks(List<Chunk> chunks, int m) throws IOException {
+    long line = 2;
+    long edges = 0;
+    for (Chunk c : chunks) {
+      if (c.error != null && edges + c.count < m) {
+        throw new IOException("Zeile " + (line + c.errorLine) + ": " + c.error);
+      }
+      c.used = (int) Math.min(c.count, m - edges);
+      line += c.lines;
+      edges += c.used;
+    }
+    if (edges < m) {
+      throw new IOException("Zeile " + line + ": Dateiende nach " + edges + " von " + m + " Kanten");
+    }
+  }
+
+  /**
+   * Parallele Praefixsumme ueber die Knotengrade: jeder Block summiert seine
+   * Grade, die Blocksummen werden nacheinander aufaddiert, dann schreibt jeder
+   * Block seine Offsets. Danach enthaelt degrees die Offsets (ohne n).
+   *
+   * @return die Offsets, Laenge n+1
+   */
+  private int[] prefixSum(final int[] degrees) throws InterruptedException {
+    final int n = degrees.length;
+    final int[] offsets = new int[n + 1];
+    int blocks = blocks(n);
+    final int[] blockStart = new int[blocks + 1];
+    run(blocks, new Task() {
+      @Override
+      public void run(int index) {
+        int sum = 0;
+        for (int v = index * VERTEX_BLOCK, end = Math.min(n, v + VERTEX_BLOCK); v < end; v++) {
+          sum += degrees[v];
+        }
+        blockStart[index + 1] = sum;
+      }
+    });
+    for (int b = 0; b < blocks; b++) {
+      blockStart[b + 1] += blockStart[b];
+    }
+    run(blocks, new Task() {
+      @Override
+      public void run(int index) {
+        int pos = blockStart[index];
+        for (int v = index * VERTEX_BLOCK, end = Math.min(n, v + VERTEX_BLOCK); v < end; v++) {
+          int degree = degrees[v];
+          offsets[v] = pos;
+          degrees[v] = pos;
+          pos += degree;
+        }
+      }
+    });
+    offsets[n] = blockStart[blocks];
+    return offsets;
+  }
+
+  private static int blocks(int n) {
+    return (n + VERTEX_BLOCK - 1) / VERTEX_BLOCK;
+  }
+
+  /**
+   * @return der Bereich von ranges gleich grossen Bereichen, in dem Knoten v
+   *         liegt; der erste Knoten des Bereichs r ist n * r / ranges
+   */
+  private static int rangeOf(int v, int n, int ranges) {
+    return (int) (((long) ranges * (v + 1) - 1) / n);
+  }
+
+  /**
+   * Fuehrt task fuer 0 .. count-1 aus, verteilt ueber einen gemeinsamen
+   * Zaehler auf die Worker
+   */
+  private void run(final int count, final Task task) throws InterruptedException {
+    if (executor == null || workers == 1 || count <= 1) {
+      for (int i = 0; i < count; i++) {
+        task.run(i);
+      }
+      return;
+    }
+    final AtomicInteger next = new AtomicInteger();
+    List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(workers);
+    for (int w = 0; w < Math.min(workers, count); w++) {
+      tasks.add(new Callable<Void>() {
+        @Override
+        public Void call() {
+          for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+            task.run(i);
+          }
+          return null;
+        }
+      });
+    }
+    for (Future<Void> f : executor.invokeAll(tasks)) {
+      try {
+        f.get();
+      } catch (ExecutionException e) {
+        throw new RuntimeException("Paralleles Einlesen fehlgeschlagen", e.getCause());
+      }
+    }
+  }
+
+  private MappedByteBuffer map(long start, long length) throws IOException {
+    return channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+  }
+
+  /**
+   * Eine Aufgabe einer parallelen Phase
+   */
+  private interface Task {
+    void run(int index);
+  }
+
+  /**
+   * Ein Abschnitt aus ganzen Zeilen mit seinen Kanten
+   */
+  private static class Chunk {
+    private final MappedByteBuffer buffer;
+    int[] from;
+    int[] to;
+    int[] weight;
+    // gelesene Kanten, davon zu den ersten m Kanten gehoerend
+    int count;
+    int used;
+    // Anzahl der Zeilen; erster Fehler und seine Zeile im Abschnitt
+    int lines;
+    String error;
+    int errorLine;
+    // nach sortByRange: die Kanten des Bereichs r liegen in
+    // rangeStart[r] .. rangeStart[r+1]-1
+    int[] rangeStart;
+
+    Chunk(MappedByteBuffer buffer, int capacity) {
+      this.buffer = buffer;
+      from = new int[capacity];
+      to = new int[capacity];
+      weight = new int[capacity];
+    }
+
+    /**
+     * Liest die Kanten bis zum Ende des Abschnitts oder bis zum ersten Fehler
+     */
+    void parse(int n) {
+      LineParser parser = new LineParser(buffer);
+      int[] values = parser.values;
+      while (true) {
+        int fields;
+        try {
+          fields = parser.parseEdgeLine(n);
+        } catch (FormatException e) {
+          lines++;
+          fail(e.getMessage());
+          return;
+        }
+        if (fields == -1) {
+          return;
+        }
+        lines++;
+        if (fields == 0) {
+          // Leerzeile
+          continue;
+        }
+        if (count == from.length) {
+          int capacity = from.length + (from.length >> 1) + 16;
+          from = Arrays.copyOf(from, capacity);
+          to = Arrays.copyOf(to, capacity);
+          weight = Arrays.copyOf(weight, capacity);
+        }
+        from[count] = values[0];
+        to[count] = values[1];
+        weight[count] = values[2];
+        count++;
+      }
+    }
+
+    /**
+     * Ersetzt die Kantenpuffer durch die ersten used Kanten, stabil sortiert
+     * nach dem Knotenbereich des Startknotens; ungerichtet kommt jede Kante
+     * {a,b} als (a,b) und (b,a) vor
+     */
+    void sortByRange(int n, int ranges, boolean directed) {
+      int size = directed ? used : 2 * used;
+      rangeStart = new int[ranges + 1];
+      for (int i = 0; i < used; i++) {
+        rangeStart[rangeOf(from[i], n, ranges) + 1]++;
+        if (!directed) {
+          rangeStart[rangeOf(to[i], n, ranges) + 1]++;
+        }
+      }
+      for (int r = 0; r < ranges; r++) {
+        rangeStart[r + 1] += rangeStart[r];
+      }
+      int[] next = Arrays.copyOf(rangeStart, ranges);
+      int[] sortedFrom = new int[size];
+      int[] sortedTo = new int[size];
+      int[] sortedWeight = new int[size];
+      for (int i = 0; i < used; i++) {
+        int a = from[i];
+        int b = to[i];
+        int pos = next[rangeOf(a, n, ranges)]++;
+        sortedFrom[pos] = a;
+        sortedTo[pos] = b;
+        sortedWeight[pos] = weight[i];
+        if (!directed) {
+          pos = next[rangeOf(b, n, ranges)]++;
+          sortedFrom[pos] = b;
+          sortedTo[pos] = a;
+          sortedWeight[pos] = weight[i];
+        }
+      }
+      from = sortedFrom;
+      to = sortedTo;
+      weight = sortedWeight;
+    }
+
+    private void fail(String message) {
+      error = message;
+      errorLine = lines;
+    }
+  }
+
+  /**
+   * Zerlegt einen Puffer in Zeilen aus ganzen Zahlen
+   */
+  private static class LineParser {
+    private final MappedByteBuffer buffer;
+    private final int limit;
+    private int pos;
+    // die Zahlen der zuletzt gelesenen Zeile
+    final int[] values = new int[3];
+
+    LineParser(MappedByteBuffer buffer) {
+      this.buffer = buffer;
+      limit = buffer.limit();
+    }
+
+    long position() {
+      return pos;
+    }
+
+    /**
+     * Liest die naechste Zeile nach values
+     *
+     * @return die Anzahl der Zahlen in der Zeile oder -1 am Ende des Puffers
+     */
+    int parseLine() throws FormatException {
+      if (pos >= limit) {
+        return -1;
+      }
+      int count = 0;
+      while (true) {
+        int c = 0;
+        while (pos < limit && ((c = buffer.get(pos)) == ' ' || c == '\t' || c == '\r')) {
+          pos++;
+        }
+        if (pos >= limit) {
+          return count;
+        }
+        if (c == '\n') {
+          pos++;
+          return count;
+        }
+        if (count == values.length) {
+          throw new FormatException("Mehr als " + values.length + " Zahlen in der Zeile");
+        }
+        values[count++] = parseInt();
+      }
+    }
+
+    /**
+     * Liest die naechste Zeile als Kante "a b gewicht" mit Knoten 0 .. n-1
+     * nach values
+     *
+     * @return 3, 0 bei einer Leerzeile oder -1 am Ende des Puffers
+     */
+    int parseEdgeLine(int n) throws FormatException {
+      int fields = parseLine();
+      if (fields <= 0) {
+        return fields;
+      }
+      if (fields != 3) {
+        throw new FormatException("Kante \"a b gewicht\" erwartet");
+      }
+      int a = values[0];
+      int b = values[1];
+      if (a < 0 || a >= n || b < 0 || b >= n) {
+        throw new FormatException("Falsche Knotennummer " + (a < 0 || a >= n ? a : b) + " (n = " + n + ")");
+      }
+      return 3;
+    }
+
+    /**
+     * Liest eine ganze Zahl mit optionalem Minuszeichen
+     */
+    private int parseInt() throws FormatException {
+      boolean negative = buffer.get(pos) == '-';
+      if (negative) {
+        pos++;
+      }
+      // negativ aufsummieren, damit auch Integer.MIN_VALUE passt
+      long value = 0;
+      int digits = 0;
+      int c;
+      while (pos < limit && (c = buffer.get(pos)) >= '0' && c <= '9') {
+        value = value * 10 - (c - '0');
+        if (value < Integer.MIN_VALUE) {
+          throw new FormatException("Zahl zu gross");
+        }
+        pos++;
+        digits++;
+      }
+      if (digits == 0 || pos < limit && (c = buffer.get(pos)) != ' ' && c != '\t' && c != '\r' && c != '\n') {
+        throw new FormatException("Ungueltige Zahl");
+      }
+      if (!negative && value == Integer.MIN_VALUE) {
+        throw new FormatException("Zahl zu gross");
+      }
+      return negative ? (int) value : (int) -value;
+    }
+  }
+
+  /**
+   * Ein Formatfehler in einer Zeile
+   */
+  @SuppressWarnings("serial")
+  private static class FormatException extends Exception {
+    FormatException(String message) {
+      super(message);
+    }
+  }
+}
@@ -0,0 +1,204 @@
+package graph;
+
+/**
+ * Ein CSR-Graph wie {@link CsrGraph}, dessen Offsets, Endknoten und Gewichte
+ * ausserhalb des Java-Heaps in Direct Buffers liegen. Auf dem Heap bleiben nur
+ * eine Handvoll Pufferobjekte, unabhaengig von der Groesse des Graphen; der
+ * Garbage Collector muss die Kanten also weder kopieren noch durchsuchen.
+ * <p>
+ * Der Speicher fuer Direct Buffers ist durch -XX:MaxDirectMemorySize begrenzt
+ * (Standard: so gross wie der maximale Heap); fuer grosse Graphen sollte er
+ * entsprechend gesetzt werden. {@link #close()} gibt die Puffer frei wie eine
+ * Arena: danach darf der Graph nicht mehr benutzt werden. Der Speicher selbst
+ * wird zurueckgegeben, sobald der Garbage Collector die Pufferobjekte
+ * einsammelt.
+ */
+public class OffHeapCsrGraph implements IndexedGraph, AutoCloseable {
+  private final int n;
+  private final int m;
+  private OffHeapIntArray offsets; // Laenge n+1
+  private OffHeapIntArray targets; // Laenge m
+  private OffHeapIntArray weights; // Laenge m
+  private final int minWeight;
+  private final int maxWeight;
+
+  private OffHeapCsrGraph(OffHeapIntArray offsets, OffHeapIntArray targets, OffHeapIntArray weights) {
+    this.n = (int) offsets.length() - 1;
+    this.m = (int) targets.length();
+    this.offsets = offsets;
+    this.targets = targets;
+    this.weights = weights;
+    int[] range = CsrGraph.weightRange(this);
+    this.minWeight = range[0];
+    this.maxWeight = range[1];
+  }
+
+  /**
+   * Kopiert einen Graphen, z.B. einen {@link MappedCsrGraph}, ohne Arrays auf
+   * dem Heap anzulegen
+   *
+   * @param graph
+   *          der zu kopierende Graph
+   * @return die Kopie mit denselben Kanten in derselben Reihenfolge
+   */
+  public static OffHeapCsrGraph copyOf(IndexedGraph graph) {
+    int n = graph.getNumberVertices();
+    int m = graph.getNumberEdges();
+    OffHeapIntArray offsets = OffHeapIntArray.allocate(n + 1L);
+    OffHeapIntArray targets = OffHeapIntArray.allocate(m);
+    OffHeapIntArray weights = OffHeapIntArray.allocate(m);
+    for (int v = 0; v < n; v++) {
+      offsets.set(v, graph.firstEdge(v));
+    }
+    offsets.set(n, m);
+    for (int e = 0; e < m; e++) {
+      targets.set(e, graph.getTarget(e));
+      weights.set(e, graph.getWeight(e));
+    }
+    return new OffHeapCsrGraph(offsets, targets, weights);
+  }
+
+  /**
+   * Gibt die Puffer frei; danach darf der Graph nicht mehr benutzt werden
+   */
+  @Override
+  public void close() {
+    offsets = null;
+    targets = null;
+    weights = null;
+  }
+
+  @Override
+  public int getNumberVertices() {
+    return n;
+  }
+
+  @Override
+  public int getNumberEdges() {
+    return m;
+  }
+
+  @Override
+  public int firstEdge(int v) {
+    return offsets.get(v);
+  }
+
+  @Override
+  public int endEdge(int v) {
+    return offsets.get(v + 1);
+  }
+
+  @Override
+  public int getTarget(int e) {
+    return targets.get(e);
+  }
+
+  @Override
+  public int getWeight(int e) {
+    return weights.get(e);
+  }
+
+  @Override
+  public int getMinWeight() {
+    return minWeight;
+  }
+
+  @Override
+  public int getMaxWeight() {
+    return maxWeight;
+  }
+
+  /**
+   * Sammelt Kanten in Direct Buffers und baut daraus den Graphen (Counting
+   * Sort nach Startknoten wie {@link CsrGraph#fromEdgeList}, Reihenfolge der
+   * Kanten je Knoten bleibt erhalten)
+   */
+  public static class Builder {
+    private final int n;
+    private OffHeapIntArray from;
+    private OffHeapIntArray to;
+    private OffHeapIntArray weight;
+    private int size;
+
+    /**
+     * @param n
+     *          Anzahl der Knoten
+     * @param expectedEdges
+     *          erwartete Anzahl der Kanten; bei mehr Kanten wachsen die Puffer
+     */
+    public Builder(int n, int expectedEdges) {
+      if (n < 0 || expectedEdges < 0) {
+        throw new IllegalArgumentException("Knoten- und Kantenanzahl duerfen nicht negativ sein");
+      }
+      this.n = n;
+      from = OffHeapIntArray.allocate(expectedEdges);
+      to = OffHeapIntArray.allocate(expectedEdges);
+      weight = OffHeapIntArray.allocate(expectedEdges);
+    }
+
+    /**
+     * Fuegt die gerichtete Kante (a,b) hinzu
+     */
+    public void addEdge(int a, int b, int w) {
+      if (a < 0 || a >= n || b < 0 || b >= n) {
+        throw new IllegalArgumentException("Falsche Knotennummer in Kante " + a + " -> " + b);
+      }
+      if (size == from.length()) {
+        grow();
+      }
+      from.set(size, a);
+      to.set(size, b);
+      weight.set(size, w);
+      size++;
+    }
+
+    /**
+     * Baut den Graphen; danach kann der Builder nicht mehr benutzt werden
+     */
+    public OffHeapCsrGraph build() {
+      OffHeapIntArray offsets = OffHeapIntArray.allocate(n + 1L);
+      for (int i = 0; i < size; i++) {
+        int a = from.get(i) + 1;
+        offsets.set(a, offsets.get(a) + 1);
+      }
+      for (int v = 0; v < n; v++) {
+        offsets.set(v + 1, offsets.get(v + 1) + offsets.get(v));
+      }
+      OffHeapIntArray next = OffHeapIntArray.allocate(n);
+      for (int v = 0; v < n; v++) {
+        next.set(v, offsets.get(v));
+      }
+      OffHeapIntArray targets = OffHeapIntArray.allocate(size);
+      OffHeapIntArray weights = OffHeapIntArray.allocate(size);
+      for (int i = 0; i < size; i++) {
+        int a = from.get(i);
+        int pos = next.get(a);
+        next.set(a, pos + 1);
+        targets.set(pos, to.get(i));
+        weights.set(pos, weight.get(i));
+      }
+      from = null;
+      to = null;
+      weight = null;
+      return new OffHeapCsrGraph(offsets, targets, weights);
+    }
+
+    private void grow() {
+      long capacity = Math.min(Integer.MAX_VALUE, from.length() + (from.length() >> 1) + 16);
+      if (capacity == from.length()) {
+        throw new IllegalStateException("Zu viele Kanten");
+      }
+      from = copy(from, capacity);
+      to = copy(to, capacity);
+      weight = copy(weight, capacity);
+    }
+
+    private OffHeapIntArray copy(OffHeapIntArray array, long capacity) {
+      OffHeapIntArray result = OffHeapIntArray.allocate(capacity);
+      for (int i = 0; i < size; i++) {
+        result.set(i, array.get(i));
+      }
+      return result;
+    }
+  }
+}
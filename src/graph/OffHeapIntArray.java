@@ -0,0 +1,85 @@
+package graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Ein int-Array ausserhalb des Java-Heaps, entweder in einer eingeblendeten
+ * Datei (little-endian) oder in Direct Buffers. Ein ByteBuffer fasst
+ * hoechstens 2 GB, deshalb besteht das Array aus Segmenten von je 2^28 Werten.
+ */
+class OffHeapIntArray {
+  private static final int SEGMENT_SHIFT = 28;
+  private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+  private final IntBuffer[] segments;
+  private final long length;
+
+  private OffHeapIntArray(long length) {
+    this.length = length;
+    segments = new IntBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+  }
+
+  /**
+   * Legt ein mit 0 gefuelltes Array in Direct Buffers an
+   *
+   * @param length
+   *          Anzahl der Werte
+   */
+  static OffHeapIntArray allocate(long length) {
+    OffHeapIntArray array = new OffHeapIntArray(length);
+    for (int s = 0; s < array.segments.length; s++) {
+      array.segments[s] = ByteBuffer.allocateDirect((int) (4 * array.segmentLength(s))).order(ByteOrder.nativeOrder())
+          .asIntBuffer();
+    }
+    return array;
+  }
+
+  /**
+   * Blendet ein Array aus einer Datei schreibgeschuetzt ein
+   *
+   * @param channel
+   *          die Datei
+   * @param position
+   *          Byte-Position des ersten Werts in der Datei
+   * @param length
+   *          Anzahl der Werte
+   */
+  static OffHeapIntArray map(FileChannel channel, long position, long length) throws IOException {
+    return map(channel, position, length, FileChannel.MapMode.READ_ONLY);
+  }
+
+  /**
+   * Blendet ein Array aus einer Datei ein; mit READ_WRITE wird die Datei bei
+   * Bedarf verlaengert und set() schreibt direkt in die Datei
+   */
+  static OffHeapIntArray map(FileChannel channel, long position, long length, FileChannel.MapMode mode)
+      throws IOException {
+    OffHeapIntArray array = new OffHeapIntArray(length);
+    for (int s = 0; s < array.segments.length; s++) {
+      long first = (long) s << SEGMENT_SHIFT;
+      array.segments[s] = channel.map(mode, position + 4 * first, 4 * array.segmentLength(s))
+          .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+    return array;
+  }
+
+  long length() {
+    return length;
+  }
+
+  int get(int i) {
+    return segments[i >>> SEGMENT_SHIFT].get(i & SEGMENT_MASK);
+  }
+
+  void set(int i, int value) {
+    segments[i >>> SEGMENT_SHIFT].put(i & SEGMENT_MASK, value);
+  }
+
+  private long segmentLength(int s) {
+    return Math.min(1L << SEGMENT_SHIFT, length - ((long) s << SEGMENT_SHIFT));
+  }
+}
@@ -0,0 +1,121 @@
+package de.bht.algo.ch;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import graph.Edge;
+import graph.Graph;
+import graph.GraphLesen;
+import graph.Vertex;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import de.bht.algo.dijkstra.Dijkstra;
+import de.bht.algo.dijkstra.ShortestPathResult;
+
+/**
+ * Vergleicht die {@link ContractionHierarchy} mit {@link Dijkstra} auf allen
+ * Graphen in 3._BeispieleGewichtet, gerichtet und ungerichtet, fuer jedes Paar
+ * (s, t) einschliesslich der nicht erreichbaren. Jeder entpackte Weg muss aus
+ * Kanten des Graphen bestehen und genau die Distanz als Gewicht haben.
+ */
+@RunWith(Parameterized.class)
+public class ContractionHierarchyTest {
+
+  private final File file;
+  private final boolean directed;
+
+  public ContractionHierarchyTest(String name, File file, boolean directed) {
+    this.file = file;
+    this.directed = directed;
+  }
+
+  @Parameters(name = "{0}")
+  public static Collection<Object[]> samples() {
+    File dir = new File(System.getProperty("beispiele", "3._BeispieleGewichtet"));
+    File[] files = dir.listFiles();
+    assertNotNull("Verzeichnis " + dir + " fehlt", files);
+    Arrays.sort(files);
+    List<Object[]> samples = new ArrayList<Object[]>();
+    for (File f : files) {
+      samples.add(new Object[] { f.getName() + " gerichtet", f, true });
+      samples.add(new Object[] { f.getName() + " ungerichtet", f, false });
+    }
+    return samples;
+  }
+
+  @Test
+  public void matchesDijkstra() {
+    Graph<Vertex, Edge<Vertex>> graph = GraphLesen.FileToWeightedGraph(file.getPath(), directed);
+    if (graph.getMinWeight() < 0) {
+      // beide lehnen negative Kantengewichte ab
+      try {
+        new ContractionHierarchyBuilder(graph).build();
+        fail("negative Kantengewichte wurden nicht abgelehnt");
+      } catch (IllegalArgumentException expected) {
+      }
+      try {
+        new Dijkstra(graph, 0).search(-1);
+        fail("Dijkstra hat negative Kantengewichte nicht abgelehnt");
+      } catch (IllegalArgumentException expected) {
+      }
+      return;
+    }
+    ContractionHierarchy ch = new ContractionHierarchyBuilder(graph).build();
+    for (Vertex s : graph.getVertices()) {
+      ShortestPathResult expected = new Dijkstra(graph, s.getId()).search(-1);
+      for (Vertex t : graph.getVertices()) {
+        String pair = "(" + s.getId() + ", " + t.getId() + ")";
+        int distance = ch.distance(s.getId(), t.getId());
+        int[] path = ch.path(s.getId(), t.getId());
+        if (!expected.isReachable(t.getId())) {
+          assertEquals(pair, ContractionHierarchy.UNREACHABLE, distance);
+          assertNull(pair, path);
+          continue;
+        }
+        assertEquals(pair, expected.getDistance(t.getId()), distance);
+        assertNotNull(pair, path);
+        assertEquals(pair, s.getId(), path[0]);
+        assertEquals(pair, t.getId(), path[path.length - 1]);
+        long weight = 0;
+        for (int i = 0; i + 1 < path.length; i++) {
+          int w = edgeWeight(graph, path[i], path[i + 1]);
+          assertTrue(pair + ": keine Kante " + path[i] + " -> " + path[i + 1] + " in " + Arrays.toString(path),
+              w >= 0);
+          weight += w;
+        }
+        assertEquals(pair + ": Gewicht von " + Arrays.toString(path), distance, weight);
+      }
+    }
+    if (graph.getNumberVertices() > 0) {
+      int s = graph.getVertices().iterator().next().getId();
+      assertArrayEquals(new int[] { s }, ch.path(s, s));
+    }
+  }
+
+  /**
+   * @return das kleinste Gewicht der Kanten u -&gt; v oder -1, wenn es keine
+   *         gibt
+   */
+  private static int edgeWeight(Graph<Vertex, Edge<Vertex>> graph, int u, int v) {
+    int min = -1;
+    for (Edge<Vertex> e : graph.getIncidentEdges(u)) {
+      if (e.getVertexB().getId() == v && (min == -1 || e.getWeight() < min)) {
+        min = e.getWeight();
+      }
+    }
+    return min;
+  }
+}